@@ -0,0 +1,73 @@
+package io.github.ocelot.ludum.api;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Measures looking up the game of a world and of a player through the index {@link MinigameManager} uses, with many games running, so the lookups cannot quietly turn back into a scan.</p>
+ * <p>Lives in the API package because the index is package private. Games are plain objects since the index never looks inside them.</p>
+ *
+ * @author Ocelot
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameLookupBenchmark
+{
+    private static final int PLAYERS_PER_GAME = 8;
+
+    @Param({"1", "100", "1000"})
+    public int games;
+
+    private GameIndex<Object> index;
+    private UUID[] worlds;
+    private UUID[] players;
+    private UUID missing;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        this.index = new GameIndex<>();
+        this.worlds = new UUID[this.games];
+        this.players = new UUID[this.games * PLAYERS_PER_GAME];
+        for (int i = 0; i < this.games; i++)
+        {
+            Object game = new Object();
+            this.worlds[i] = UUID.randomUUID();
+            this.index.add(this.worlds[i], game);
+            for (int j = 0; j < PLAYERS_PER_GAME; j++)
+            {
+                UUID player = UUID.randomUUID();
+                this.players[i * PLAYERS_PER_GAME + j] = player;
+                this.index.addPlayer(player, game);
+            }
+        }
+        this.missing = UUID.randomUUID();
+    }
+
+    @Benchmark
+    public Object gameByWorld()
+    {
+        this.next = (this.next + 1) % this.worlds.length;
+        return this.index.getByWorld(this.worlds[this.next]);
+    }
+
+    @Benchmark
+    public Object gameByWorldMissing()
+    {
+        return this.index.getByWorld(this.missing);
+    }
+
+    @Benchmark
+    public Object gameOfPlayer()
+    {
+        this.next = (this.next + 1) % this.players.length;
+        return this.index.getByPlayer(this.players[this.next]);
+    }
+}
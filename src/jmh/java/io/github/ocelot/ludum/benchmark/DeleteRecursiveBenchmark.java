@@ -0,0 +1,55 @@
+package io.github.ocelot.ludum.benchmark;
+
+import io.github.ocelot.ludum.core.world.WorldReaper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Measures deleting an old world folder the way the reaper does it in the background.</p>
+ *
+ * @author Ocelot
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeleteRecursiveBenchmark
+{
+    @Param({"64", "1024", "8192"})
+    public int files;
+
+    private Path root;
+    private Path folder;
+    private int count;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException
+    {
+        this.root = Files.createTempDirectory("ludum-delete");
+    }
+
+    @Setup(Level.Invocation)
+    public void createTree() throws IOException
+    {
+        this.folder = this.root.resolve("world" + this.count++);
+        WorldFiles.createTree(this.folder, this.files);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException
+    {
+        WorldReaper.deleteRecursive(this.root);
+    }
+
+    @Benchmark
+    public void deleteRecursive() throws IOException
+    {
+        WorldReaper.deleteRecursive(this.folder);
+    }
+}
@@ -0,0 +1,55 @@
+package io.github.ocelot.ludum.benchmark;
+
+import io.github.ocelot.ludum.core.concurrent.IdAllocator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Measures acquiring and releasing world ids while many other ids are in use, alone and with several threads starting and stopping games at once.</p>
+ *
+ * @author Ocelot
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdAllocatorBenchmark
+{
+    private static final int CAPACITY = 4096;
+
+    @Param({"0", "2048", "4000"})
+    public int used;
+
+    private IdAllocator ids;
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        this.ids = new IdAllocator(CAPACITY);
+        for (int i = 0; i < this.used; i++)
+            this.ids.acquire();
+        // Frees ids spread across the range so acquiring has to search instead of always taking the end
+        for (int i = 0; i < this.used; i += 16)
+            this.ids.release(i);
+    }
+
+    @Benchmark
+    public int churn()
+    {
+        int id = this.ids.acquire();
+        this.ids.release(id);
+        return id;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int churnContended()
+    {
+        int id = this.ids.acquire();
+        this.ids.release(id);
+        return id;
+    }
+}
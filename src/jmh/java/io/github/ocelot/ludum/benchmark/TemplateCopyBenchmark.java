@@ -0,0 +1,104 @@
+package io.github.ocelot.ludum.benchmark;
+
+import io.github.ocelot.ludum.BukkitStandIn;
+import io.github.ocelot.ludum.core.world.TemplateCache;
+import io.github.ocelot.ludum.core.world.TemplatePack;
+import io.github.ocelot.ludum.core.world.WorldReaper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Measures creating a world folder from a template, the disk work done by <code>MinigameManager.loadWorld</code>, for each template format and a few map sizes.</p>
+ * <p>Zip templates are measured once their cache has been extracted, which is the cost every start after the first pays.</p>
+ *
+ * @author Ocelot
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TemplateCopyBenchmark
+{
+    @Param({"folder", "zip", "pack"})
+    public String format;
+
+    @Param({"4", "32", "128"})
+    public int regions;
+
+    private Path root;
+    private Path worlds;
+    private ExecutorService executor;
+    private TemplateCache cache;
+    private String template;
+    private Path world;
+    private int count;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException
+    {
+        BukkitStandIn.install();
+        this.root = Files.createTempDirectory("ludum-template");
+        this.worlds = Files.createDirectories(this.root.resolve("worlds"));
+        Path templates = Files.createDirectories(this.root.resolve("minigames"));
+        this.template = this.format + "-" + this.regions;
+
+        Path source = this.root.resolve("source");
+        WorldFiles.createWorld(source, this.regions);
+        switch (this.format)
+        {
+            case "folder":
+                Files.move(source, templates.resolve(this.template));
+                break;
+            case "zip":
+                WorldFiles.zip(source, templates.resolve(this.template + ".zip"));
+                break;
+            case "pack":
+                TemplatePack.convert(source, templates.resolve(this.template + TemplatePack.EXTENSION));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown format: " + this.format);
+        }
+
+        this.executor = Executors.newFixedThreadPool(4);
+        this.cache = new TemplateCache(templates, this.root.resolve("cache"), this.executor, BukkitStandIn.config());
+        // Extracts the zip cache up front so only cloning is measured
+        Path warm = this.worlds.resolve("warm");
+        Files.createDirectories(warm);
+        this.cache.copy(this.template, warm);
+        WorldReaper.deleteRecursive(warm);
+    }
+
+    @Setup(Level.Invocation)
+    public void createFolder() throws IOException
+    {
+        this.world = Files.createDirectories(this.worlds.resolve("mini" + this.count++));
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteFolder() throws IOException
+    {
+        WorldReaper.deleteRecursive(this.world);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException
+    {
+        this.executor.shutdown();
+        WorldReaper.deleteRecursive(this.root);
+    }
+
+    @Benchmark
+    public Path copy() throws IOException
+    {
+        this.cache.copy(this.template, this.world);
+        return this.world;
+    }
+}
@@ -0,0 +1,60 @@
+package io.github.ocelot.ludum.benchmark;
+
+import io.github.ocelot.ludum.BukkitStandIn;
+import io.github.ocelot.ludum.api.TickPriority;
+import io.github.ocelot.ludum.core.tick.TickScheduler;
+import io.github.ocelot.ludum.core.tick.TimerWheel;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Measures the overhead the manager adds to each server tick for a number of games that do nothing.</p>
+ * <p>The scheduler benchmark covers dispatching game ticks and the timer wheel benchmark covers a repeating task for every game.</p>
+ *
+ * @author Ocelot
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TickBenchmark
+{
+    @Param({"1", "30", "300"})
+    public int games;
+
+    private TickScheduler scheduler;
+    private TimerWheel timerWheel;
+
+    @Setup(Level.Trial)
+    public void setUp(Blackhole blackhole)
+    {
+        TickPriority[] priorities = TickPriority.values();
+        TickScheduler.Entry[] entries = new TickScheduler.Entry[this.games];
+        this.timerWheel = new TimerWheel();
+        TimerWheel.Scope scope = new TimerWheel.Scope();
+        for (int i = 0; i < this.games; i++)
+        {
+            int game = i;
+            entries[i] = new TickScheduler.Entry("game" + i, () -> blackhole.consume(game), 1 + i % 2, priorities[i % priorities.length]);
+            this.timerWheel.schedule(scope, 1 + i % 20, 20, () -> blackhole.consume(game));
+        }
+        this.scheduler = new TickScheduler(BukkitStandIn.config());
+        this.scheduler.setEntries(entries);
+    }
+
+    @Benchmark
+    public void scheduler()
+    {
+        this.scheduler.tick();
+    }
+
+    @Benchmark
+    public void timerWheel()
+    {
+        this.timerWheel.tick();
+    }
+}
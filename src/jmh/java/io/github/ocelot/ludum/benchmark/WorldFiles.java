@@ -0,0 +1,96 @@
+package io.github.ocelot.ludum.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * <p>Generates world folders shaped like real templates for benchmarks.</p>
+ *
+ * @author Ocelot
+ */
+public final class WorldFiles
+{
+    private static final int REGION_SIZE = 512 * 1024;
+
+    private WorldFiles()
+    {
+    }
+
+    /**
+     * Creates a world folder with the specified number of region files. Region data is half random and half zeros, which compresses about as well as real chunks.
+     *
+     * @param folder  The folder to create the world in
+     * @param regions The number of region files to create
+     * @throws IOException If the files cannot be written
+     */
+    public static void createWorld(Path folder, int regions) throws IOException
+    {
+        Random random = new Random(regions);
+        Files.createDirectories(folder.resolve("region"));
+        Files.createDirectories(folder.resolve("data"));
+        Files.write(folder.resolve("level.dat"), randomBytes(random, 4096));
+        Files.write(folder.resolve("level.dat_old"), randomBytes(random, 4096));
+        Files.write(folder.resolve("data").resolve("raids.dat"), randomBytes(random, 128));
+        for (int i = 0; i < regions; i++)
+            Files.write(folder.resolve("region").resolve("r." + (i % 16) + "." + (i / 16) + ".mca"), randomBytes(random, REGION_SIZE));
+    }
+
+    /**
+     * Creates a folder with the specified number of small files spread over a few sub folders.
+     *
+     * @param folder The folder to create
+     * @param files  The number of files to create
+     * @throws IOException If the files cannot be written
+     */
+    public static void createTree(Path folder, int files) throws IOException
+    {
+        byte[] data = new byte[1024];
+        for (int i = 0; i < files; i++)
+        {
+            Path dir = folder.resolve("dir" + (i % 8));
+            if (i < 8)
+                Files.createDirectories(dir);
+            Files.write(dir.resolve("file" + i), data);
+        }
+    }
+
+    /**
+     * Zips the contents of the specified folder.
+     *
+     * @param folder The folder to zip
+     * @param zip    The zip file to create
+     * @throws IOException If any file cannot be read or the zip cannot be written
+     */
+    public static void zip(Path folder, Path zip) throws IOException
+    {
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(zip)))
+        {
+            try (var files = Files.walk(folder))
+            {
+                for (Path file : (Iterable<Path>) files::iterator)
+                {
+                    if (file.equals(folder))
+                        continue;
+                    String name = folder.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/");
+                    out.putNextEntry(new ZipEntry(Files.isDirectory(file) ? name + "/" : name));
+                    if (Files.isRegularFile(file))
+                        Files.copy(file, out);
+                    out.closeEntry();
+                }
+            }
+        }
+    }
+
+    private static byte[] randomBytes(Random random, int size)
+    {
+        byte[] data = new byte[size];
+        byte[] noise = new byte[size / 2];
+        random.nextBytes(noise);
+        System.arraycopy(noise, 0, data, 0, noise.length);
+        return data;
+    }
+}
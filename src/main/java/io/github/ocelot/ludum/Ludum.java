@@ -1,15 +1,18 @@
 package io.github.ocelot.ludum;
 
 import co.aikar.commands.PaperCommandManager;
-import com.google.common.util.concurrent.MoreExecutors;
 import io.github.ocelot.ludum.api.MinigameManager;
 import io.github.ocelot.ludum.api.MinigameRegistry;
+import io.github.ocelot.ludum.api.metrics.MetricRegistry;
 import io.github.ocelot.ludum.core.LudumEvents;
 import io.github.ocelot.ludum.core.command.MinigameCommand;
+import io.github.ocelot.ludum.core.concurrent.BoundedExecutor;
+import io.github.ocelot.ludum.core.metrics.PrometheusExporter;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.NamespacedKey;
 import org.bukkit.World;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.jetbrains.annotations.ApiStatus;
@@ -17,7 +20,6 @@ import org.jetbrains.annotations.ApiStatus;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
@@ -29,12 +31,14 @@ import java.util.stream.Collectors;
  */
 public class Ludum extends JavaPlugin
 {
-    private static final AtomicInteger WORKER_COUNT = new AtomicInteger(1);
     private static Ludum instance;
 
     private World overworld;
     private Executor mainExecutor;
-    private ExecutorService backgroundExecutor;
+    private BoundedExecutor ioExecutor;
+    private BoundedExecutor cpuExecutor;
+    private MetricRegistry metrics;
+    private PrometheusExporter exporter;
     private MinigameManager minigameManager;
 
     public Ludum()
@@ -47,49 +51,32 @@ public class Ludum extends JavaPlugin
         Ludum.instance = this;
 
         MinigameRegistry.flush();
+        this.saveDefaultConfig();
 
         this.overworld = Bukkit.getWorlds().get(0);
+        this.metrics = new MetricRegistry();
 
         this.mainExecutor = Bukkit.getScheduler().getMainThreadExecutor(this);
-        int i = Math.min(Runtime.getRuntime().availableProcessors() - 1, 7);
-        if (i <= 0)
-        {
-            this.backgroundExecutor = MoreExecutors.newDirectExecutorService();
-        }
-        else
-        {
-            this.backgroundExecutor = new ForkJoinPool(i, task ->
-            {
-                ForkJoinWorkerThread forkjoinworkerthread = new ForkJoinWorkerThread(task)
-                {
-                    @Override
-                    protected void onTermination(Throwable e)
-                    {
-                        if (e != null)
-                        {
-                            Bukkit.getLogger().warning(this.getName() + " died");
-                            e.printStackTrace();
-                        }
-
-                        super.onTermination(e);
-                    }
-                };
-                forkjoinworkerthread.setName("Worker-Minigame-" + WORKER_COUNT.getAndIncrement());
-                return forkjoinworkerthread;
-            }, (t, e) ->
-            {
-                if (e instanceof CompletionException)
-                    e = e.getCause();
-                e.printStackTrace();
-            }, true);
-        }
+        ConfigurationSection executors = this.getConfig().getConfigurationSection("executors");
+        int cpuThreads = executors.getInt("cpu-threads", 0);
+        if (cpuThreads <= 0)
+            cpuThreads = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors() - 1, 7));
+        // Disk work blocks, so it gets its own threads and never waits behind or holds up async ticks
+        this.ioExecutor = new BoundedExecutor("IO", Math.max(1, executors.getInt("io-threads", 4)), executors.getInt("io-queue-size", 256), executors.getDouble("io-saturation", 0.75), this.metrics);
+        this.cpuExecutor = new BoundedExecutor("CPU", cpuThreads, executors.getInt("cpu-queue-size", 256), 1.0, this.metrics);
 
         this.minigameManager = new MinigameManager();
 
-        Path minigamesFolder = Ludum.getInstance().getDataFolder().toPath().resolve("minigames");
+        if (this.getConfig().getBoolean("metrics.enabled", false))
+        {
+            this.exporter = new PrometheusExporter(this.metrics, this.getConfig().getConfigurationSection("metrics"));
+            this.exporter.start();
+        }
+
+        Path minigamesFolder = this.getDataFolder().toPath().resolve("minigames");
         if (!Files.exists(minigamesFolder))
         {
-            this.backgroundExecutor.execute(() ->
+            Runnable createFolder = () ->
             {
                 try
                 {
@@ -99,7 +86,16 @@ public class Ludum extends JavaPlugin
                 {
                     e.printStackTrace();
                 }
-            });
+            };
+            try
+            {
+                this.ioExecutor.execute(createFolder);
+            }
+            catch (RejectedExecutionException e)
+            {
+                // A single folder is cheap enough to create right away when the pool has no room
+                createFolder.run();
+            }
         }
 
         PaperCommandManager commandManager = new PaperCommandManager(this);
@@ -115,21 +111,29 @@ public class Ludum extends JavaPlugin
     @Override
     public void onDisable()
     {
+        if (this.exporter != null)
+        {
+            this.exporter.close();
+            this.exporter = null;
+        }
         this.minigameManager.close();
         this.minigameManager = null;
         this.mainExecutor = null;
-        this.backgroundExecutor.shutdown();
+        this.ioExecutor.shutdown();
+        this.cpuExecutor.shutdown();
         try
         {
-            if (!this.backgroundExecutor.awaitTermination(10, TimeUnit.SECONDS))
-                Bukkit.getLogger().warning("Failed to shut down background executor after 10 seconds");
+            for (BoundedExecutor executor : new BoundedExecutor[]{this.ioExecutor, this.cpuExecutor})
+                if (!executor.awaitTermination(10, TimeUnit.SECONDS))
+                    Bukkit.getLogger().warning("Failed to shut down " + executor.getName() + " executor after 10 seconds");
         }
         catch (InterruptedException e)
         {
             e.printStackTrace();
         }
-        this.backgroundExecutor = null;
-        WORKER_COUNT.set(1);
+        this.ioExecutor = null;
+        this.cpuExecutor = null;
+        this.metrics = null;
     }
 
     /**
@@ -140,16 +144,47 @@ public class Ludum extends JavaPlugin
         return minigameManager;
     }
 
+    /**
+     * @return The registry of every metric exported by Ludum and its minigames
+     */
+    public MetricRegistry getMetrics()
+    {
+        return metrics;
+    }
+
     @ApiStatus.Internal
     public Executor getMainExecutor()
     {
         return mainExecutor;
     }
 
+    /**
+     * @return The pool for blocking file work such as copying, extracting and deleting worlds
+     */
+    @ApiStatus.Internal
+    public BoundedExecutor getIoExecutor()
+    {
+        return ioExecutor;
+    }
+
+    /**
+     * @return The pool for computing work such as async ticks
+     */
+    @ApiStatus.Internal
+    public BoundedExecutor getCpuExecutor()
+    {
+        return cpuExecutor;
+    }
+
+    /**
+     * @return The pool for computing work such as async ticks
+     * @deprecated Background work is split between two pools, use {@link #getCpuExecutor()} or {@link #getIoExecutor()} instead. This will be removed in the next release.
+     */
+    @Deprecated
     @ApiStatus.Internal
     public Executor getBackgroundExecutor()
     {
-        return backgroundExecutor;
+        return this.getCpuExecutor();
     }
 
     @ApiStatus.Internal
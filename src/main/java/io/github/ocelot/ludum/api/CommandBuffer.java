@@ -0,0 +1,59 @@
+package io.github.ocelot.ludum.api;
+
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>Collects work produced off the main thread by {@link Minigame#tickAsync(CommandBuffer)} so it can be applied on the main thread.</p>
+ *
+ * @author Ocelot
+ */
+public class CommandBuffer
+{
+    private final List<Runnable> commands;
+
+    public CommandBuffer()
+    {
+        this.commands = new ArrayList<>();
+    }
+
+    /**
+     * Queues a command to run on the main thread before the minigame next ticks.
+     *
+     * @param command The command to run
+     */
+    public void submit(Runnable command)
+    {
+        this.commands.add(command);
+    }
+
+    /**
+     * @return Whether no commands have been submitted
+     */
+    public boolean isEmpty()
+    {
+        return this.commands.isEmpty();
+    }
+
+    @ApiStatus.Internal
+    public void apply()
+    {
+        try
+        {
+            for (Runnable command : this.commands)
+                command.run();
+        }
+        finally
+        {
+            this.commands.clear();
+        }
+    }
+
+    @ApiStatus.Internal
+    public void clear()
+    {
+        this.commands.clear();
+    }
+}
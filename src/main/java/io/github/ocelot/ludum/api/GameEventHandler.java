@@ -0,0 +1,32 @@
+package io.github.ocelot.ludum.api;
+
+import org.bukkit.event.EventPriority;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>Marks a method on a {@link Minigame} or {@link MinigameState} as a handler for a Bukkit event.</p>
+ * <p>The method must take a single event parameter. It is only called for events that happen in the world of its own game, and state handlers are only called while that state is the current one. Events that are not tied to a world, such as server events, cannot be handled this way.</p>
+ * <p>Handlers are called on the thread that fired the event. Events that can fire asynchronously, such as {@link org.bukkit.event.player.AsyncPlayerChatEvent}, call their handlers off the main thread, so those handlers must not use the Bukkit API or change game state without synchronizing.</p>
+ *
+ * @author Ocelot
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface GameEventHandler
+{
+    /**
+     * @return The priority the event is handled at
+     * @see org.bukkit.event.EventHandler#priority()
+     */
+    EventPriority priority() default EventPriority.NORMAL;
+
+    /**
+     * @return Whether the handler should be skipped if the event was cancelled
+     * @see org.bukkit.event.EventHandler#ignoreCancelled()
+     */
+    boolean ignoreCancelled() default false;
+}
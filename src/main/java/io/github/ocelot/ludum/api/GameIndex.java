@@ -0,0 +1,137 @@
+package io.github.ocelot.ludum.api;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>Finds running games by the world they take place in and by the players in them without going through every game.</p>
+ * <p>Both indexes are concurrent, so lookups are safe from any thread while games are added and removed on the main thread.</p>
+ *
+ * @param <T> The type of game being indexed
+ * @author Ocelot
+ */
+final class GameIndex<T>
+{
+    private final Map<UUID, T> byWorld;
+    private final Map<UUID, T> byPlayer;
+
+    GameIndex()
+    {
+        this.byWorld = new ConcurrentHashMap<>();
+        this.byPlayer = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Adds a game under the world it takes place in.
+     *
+     * @param worldId The id of the world the game is in
+     * @param game    The game to add
+     */
+    void add(UUID worldId, T game)
+    {
+        this.byWorld.put(worldId, game);
+    }
+
+    /**
+     * Removes a game and every player in it, unless a different game has replaced it in that world.
+     *
+     * @param worldId The id of the world the game was in
+     * @param game    The game to remove
+     */
+    void remove(UUID worldId, T game)
+    {
+        this.byWorld.remove(worldId, game);
+        this.byPlayer.values().removeIf(value -> value == game);
+    }
+
+    /**
+     * Records that the specified player is in a game.
+     *
+     * @param playerId The id of the player
+     * @param game     The game they are in
+     */
+    void addPlayer(UUID playerId, T game)
+    {
+        this.byPlayer.put(playerId, game);
+    }
+
+    /**
+     * Records that the specified player has moved to a different world, which puts them in the game of that world if there is one.
+     *
+     * @param playerId The id of the player
+     * @param worldId  The id of the world they are now in
+     */
+    void movePlayer(UUID playerId, UUID worldId)
+    {
+        T game = this.byWorld.get(worldId);
+        if (game != null)
+            this.byPlayer.put(playerId, game);
+        else
+            this.byPlayer.remove(playerId);
+    }
+
+    /**
+     * Forgets which game the specified player is in.
+     *
+     * @param playerId The id of the player
+     */
+    void removePlayer(UUID playerId)
+    {
+        this.byPlayer.remove(playerId);
+    }
+
+    /**
+     * @param worldId The id of the world to check
+     * @return The game in that world or <code>null</code> if there is none
+     */
+    @Nullable
+    T getByWorld(UUID worldId)
+    {
+        return this.byWorld.get(worldId);
+    }
+
+    /**
+     * @param playerId The id of the player to check
+     * @return The game that player is in or <code>null</code> if they are not in one
+     */
+    @Nullable
+    T getByPlayer(UUID playerId)
+    {
+        return this.byPlayer.get(playerId);
+    }
+
+    /**
+     * @param game The game to check
+     * @return The number of players in that game
+     */
+    int countPlayers(T game)
+    {
+        int count = 0;
+        for (T value : this.byPlayer.values())
+            if (value == game)
+                count++;
+        return count;
+    }
+
+    /**
+     * @return Every indexed game
+     */
+    Collection<T> getGames()
+    {
+        return Collections.unmodifiableCollection(this.byWorld.values());
+    }
+
+    /**
+     * Removes every game and player.
+     */
+    void clear()
+    {
+        this.byWorld.clear();
+        this.byPlayer.clear();
+    }
+}
@@ -1,14 +1,21 @@
 package io.github.ocelot.ludum.api;
 
 import io.github.ocelot.ludum.Ludum;
+import io.github.ocelot.ludum.api.metrics.MetricRegistry;
 import io.github.ocelot.ludum.core.DefaultMinigameState;
+import io.github.ocelot.ludum.core.profile.RollingHistogram;
+import io.github.ocelot.ludum.core.tick.TimerWheel;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.World;
+import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * <p>A basic minigame in its own world.</p>
  *
@@ -18,7 +25,11 @@ public abstract class Minigame
 {
     private final String worldName;
     private World world;
-    private MinigameState state;
+    // Read by the async tick on a background thread while setState runs on the main thread
+    private volatile MinigameState state;
+    private RollingHistogram stateTimes;
+    private TimerWheel.Scope tasks;
+    private MetricRegistry metrics;
 
     public Minigame(String world)
     {
@@ -39,7 +50,120 @@ public abstract class Minigame
      */
     public void tick()
     {
+        if (this.stateTimes == null)
+            this.stateTimes = Ludum.getInstance().getMinigameManager().getProfiler().getStateTimes(this.state.getClass());
+        long start = System.nanoTime();
         this.state.tick();
+        this.stateTimes.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Called off the main thread at the start of each tick this minigame ticks on when {@link #hasAsyncTick()} is enabled.
+     * <p>This runs alongside the async ticks of other minigames, so it must not use the Bukkit API or anything shared with other games. Any changes to the world should be submitted to the command buffer instead, which is applied on the main thread before {@link #tick()}.</p>
+     *
+     * @param commands The buffer to submit main thread work to
+     */
+    public void tickAsync(CommandBuffer commands)
+    {
+        this.state.tickAsync(commands);
+    }
+
+    /**
+     * @return Whether {@link #tickAsync(CommandBuffer)} should be called each tick
+     */
+    public boolean hasAsyncTick()
+    {
+        return false;
+    }
+
+    /**
+     * @return Whether block changes in the world should be journaled so they can be undone with {@link #rollback()}
+     */
+    public boolean hasBlockJournal()
+    {
+        return false;
+    }
+
+    /**
+     * @return The number of server ticks between each call to {@link #tick()}
+     */
+    public int getTickInterval()
+    {
+        return 1;
+    }
+
+    /**
+     * @return How important it is for this minigame to tick on time when the server is overloaded
+     */
+    public TickPriority getTickPriority()
+    {
+        return TickPriority.NORMAL;
+    }
+
+    /**
+     * Runs the specified task once after a delay. The task is cancelled when this minigame closes.
+     * <p>Tasks can only be scheduled and cancelled on the main thread. To schedule from {@link #tickAsync(CommandBuffer)}, submit the call to the command buffer instead.</p>
+     *
+     * @param delay The number of server ticks to wait
+     * @param task  The task to run
+     * @return A handle to cancel the task with
+     * @throws IllegalStateException If called off the main thread
+     */
+    public ScheduledTask schedule(long delay, Runnable task)
+    {
+        return this.schedule(this.getTasks(), delay, 0, task);
+    }
+
+    /**
+     * Runs the specified task repeatedly until it is cancelled or this minigame closes. Must be called on the main thread.
+     *
+     * @param delay  The number of server ticks to wait before the first run
+     * @param period The number of server ticks between each run
+     * @param task   The task to run
+     * @return A handle to cancel the task with
+     * @throws IllegalStateException If called off the main thread
+     */
+    public ScheduledTask repeat(long delay, long period, Runnable task)
+    {
+        return this.schedule(this.getTasks(), delay, Math.max(1, period), task);
+    }
+
+    /**
+     * Changes to the specified state after a delay. The change is cancelled when this minigame closes. Must be called on the main thread.
+     *
+     * @param delay The number of server ticks to wait
+     * @param state The state to change to
+     * @return A handle to cancel the change with
+     * @throws IllegalStateException If called off the main thread
+     */
+    public ScheduledTask scheduleState(long delay, @Nullable MinigameState state)
+    {
+        return this.schedule(delay, () -> this.setState(state));
+    }
+
+    ScheduledTask schedule(TimerWheel.Scope scope, long delay, long period, Runnable task)
+    {
+        // The timer wheel is not thread safe, so scheduling from another thread would corrupt it
+        if (!Bukkit.isPrimaryThread())
+            throw new IllegalStateException("Minigame tasks can only be scheduled on the main thread");
+        return Ludum.getInstance().getMinigameManager().getTimerWheel().schedule(scope, delay, period, task);
+    }
+
+    private TimerWheel.Scope getTasks()
+    {
+        if (this.tasks == null)
+            this.tasks = new TimerWheel.Scope();
+        return this.tasks;
+    }
+
+    /**
+     * Cancels every task scheduled by this minigame and its current state.
+     */
+    void cancelTasks()
+    {
+        this.state.cancelTasks();
+        if (this.tasks != null)
+            this.tasks.cancelAll();
     }
 
     /**
@@ -58,10 +182,51 @@ public abstract class Minigame
         if (this.world != null)
         {
             MinigameManager manager = Ludum.getInstance().getMinigameManager();
-            manager.getRunningGame(this.world.getUID()).ifPresent(game -> manager.stop(game.getName()));
+            MinigameManager.RunningGame game = manager.getGameIn(this.world);
+            if (game != null)
+                manager.stop(game.getName());
         }
     }
 
+    /**
+     * Restores every block changed in the world since the minigame started or last rolled back, so a new round can start without reloading the world. Blocks are restored in batches over several ticks.
+     * <p>Requires {@link #hasBlockJournal()}. Changes made by players and the world are recorded automatically, but blocks changed directly through the API must be passed to {@link #recordBlock(Block)} first.</p>
+     *
+     * @return A future for when every block has been restored
+     */
+    public CompletableFuture<Void> rollback()
+    {
+        MinigameManager.RunningGame game = this.world != null ? Ludum.getInstance().getMinigameManager().getGameIn(this.world) : null;
+        if (game == null)
+            return CompletableFuture.failedFuture(new IllegalStateException("Minigame is not running"));
+        return game.rollback();
+    }
+
+    /**
+     * Records the specified block so it is restored by the next {@link #rollback()}. Must be called before changing the block through the API.
+     *
+     * @param block The block about to change
+     */
+    public void recordBlock(Block block)
+    {
+        MinigameManager.RunningGame game = this.world != null ? Ludum.getInstance().getMinigameManager().getGameIn(this.world) : null;
+        if (game != null && game.getJournal() != null)
+            game.getJournal().record(block);
+    }
+
+    /**
+     * Retrieves the metrics of this game. Everything registered here is labelled with the name of the game and its minigame, and removed when the game closes.
+     *
+     * @return The metric registry for this game
+     * @throws IllegalStateException If the minigame has not been started yet
+     */
+    public MetricRegistry getMetrics()
+    {
+        if (this.metrics == null)
+            throw new IllegalStateException("Metrics are only available once the minigame has been started");
+        return metrics;
+    }
+
     /**
      * Called when the specified player is added to the world.
      *
@@ -102,6 +267,33 @@ public abstract class Minigame
         return player.getLocation();
     }
 
+    /**
+     * @return The settings the world for this minigame is created with. The default profile creates the world like Bukkit normally would
+     */
+    public WorldProfile getWorldProfile()
+    {
+        return WorldProfile.DEFAULT;
+    }
+
+    /**
+     * Retrieves the center of the area players and the first states use. The chunks around it are loaded before {@link #init()} is called.
+     *
+     * @param world The world this minigame is being created in
+     * @return The center of the arena
+     */
+    public Location getArenaCenter(World world)
+    {
+        return world.getSpawnLocation();
+    }
+
+    /**
+     * @return The radius in chunks around {@link #getArenaCenter(World)} to load before the minigame starts, or <code>-1</code> to use the configured default
+     */
+    public int getArenaRadius()
+    {
+        return -1;
+    }
+
     /**
      * @return The name of the world file to load
      */
@@ -130,11 +322,17 @@ public abstract class Minigame
      * Changes the current minigame state and sets it up.
      *
      * @param state The new state or <code>null</code> to use a default state
+     * @throws IllegalArgumentException If any event handler of the new state is not valid, in which case the current state is kept
      */
     public void setState(@Nullable MinigameState state)
     {
+        MinigameState next = state != null ? state : new DefaultMinigameState(this);
+        // Events are routed to the current state, so its handlers have to be known before it replaces the old one
+        Ludum.getInstance().getMinigameManager().getEventBus().prepare(next.getClass());
         this.state.close();
-        this.state = state != null ? state : new DefaultMinigameState(this);
+        this.state.cancelTasks();
+        this.state = next;
+        this.stateTimes = null;
         this.state.init();
     }
 
@@ -147,4 +345,9 @@ public abstract class Minigame
     {
         this.world = world;
     }
+
+    void setMetrics(MetricRegistry metrics)
+    {
+        this.metrics = metrics;
+    }
 }
@@ -1,23 +1,45 @@
 package io.github.ocelot.ludum.api;
 
 import io.github.ocelot.ludum.Ludum;
+import io.github.ocelot.ludum.api.metrics.MetricRegistry;
+import io.github.ocelot.ludum.core.concurrent.IdAllocator;
+import io.github.ocelot.ludum.core.event.GameEventBus;
+import io.github.ocelot.ludum.core.match.Autoscaler;
+import io.github.ocelot.ludum.core.match.Matchmaker;
+import io.github.ocelot.ludum.core.profile.RollingHistogram;
+import io.github.ocelot.ludum.core.profile.TickProfiler;
+import io.github.ocelot.ludum.core.profile.jfr.*;
+import io.github.ocelot.ludum.core.tick.AsyncTickPhase;
+import io.github.ocelot.ludum.core.tick.MainThreadQueue;
+import io.github.ocelot.ludum.core.tick.TickScheduler;
+import io.github.ocelot.ludum.core.tick.TimerWheel;
+import io.github.ocelot.ludum.core.world.AdmissionController;
+import io.github.ocelot.ludum.core.world.BlockJournal;
+import io.github.ocelot.ludum.core.world.ChunkTickets;
+import io.github.ocelot.ludum.core.world.StartCoordinator;
+import io.github.ocelot.ludum.core.world.TemplateCache;
+import io.github.ocelot.ludum.core.world.VoidChunkGenerator;
+import io.github.ocelot.ludum.core.world.WorldManifest;
+import io.github.ocelot.ludum.core.world.WorldPool;
+import io.github.ocelot.ludum.core.world.WorldReaper;
 import org.bukkit.*;
 import org.bukkit.command.CommandException;
 import org.bukkit.entity.Player;
 import org.bukkit.event.player.PlayerTeleportEvent;
 import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
 
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.nio.file.*;
-import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * <p>Manages all minigames currently running.</p>
@@ -34,7 +56,13 @@ public class MinigameManager
         }
 
         @Override
-        protected void close()
+        protected CompletableFuture<?> close()
+        {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        protected void shutdown()
         {
         }
 
@@ -44,6 +72,12 @@ public class MinigameManager
             return false;
         }
 
+        @Override
+        public CompletableFuture<List<Player>> addPlayers(Collection<Player> players)
+        {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+
         @Override
         public void removePlayer(Player player)
         {
@@ -51,166 +85,599 @@ public class MinigameManager
     };
 
     private final Map<String, RunningGame> runningGames;
-    private final Set<Integer> usedIds;
+    private final IdAllocator ids;
     private final Map<String, CompletableFuture<Boolean>> endingGames;
+    private final GameIndex<RunningGame> index;
+    private final TemplateCache templateCache;
+    private final Map<String, WorldManifest> manifests;
+    private final WorldPool worldPool;
+    private final WorldReaper reaper;
+    private final TickProfiler profiler;
+    private final TickScheduler scheduler;
+    private final AsyncTickPhase asyncPhase;
+    private final TimerWheel timerWheel;
+    private final AdmissionController admission;
+    private final Matchmaker matchmaker;
+    private final Autoscaler autoscaler;
+    private final GameEventBus eventBus;
+    private final MetricRegistry metrics;
+    private final MainThreadQueue mainQueue;
+    private final StartCoordinator coordinator;
+    private final boolean warmArenas;
+    private final int defaultArenaRadius;
+    private final int rollbackBatchSize;
+    private final int teleportBatchSize;
+    private volatile boolean gamesChanged;
 
     public MinigameManager()
     {
-        this.runningGames = new HashMap<>();
-        this.usedIds = new HashSet<>();
-        this.endingGames = new HashMap<>();
+        Path dataFolder = Ludum.getInstance().getDataFolder().toPath();
+        this.runningGames = new ConcurrentHashMap<>();
+        this.ids = new IdAllocator(4096);
+        this.endingGames = new ConcurrentHashMap<>();
+        this.scheduler = new TickScheduler(Ludum.getInstance().getConfig().getConfigurationSection("tick-scheduler"));
+        this.asyncPhase = new AsyncTickPhase(Ludum.getInstance().getCpuExecutor(), Ludum.getInstance().getConfig().getConfigurationSection("async-tick"));
+        this.timerWheel = new TimerWheel();
+        this.warmArenas = Ludum.getInstance().getConfig().getBoolean("readiness.enabled", true);
+        this.defaultArenaRadius = Math.max(0, Ludum.getInstance().getConfig().getInt("readiness.arena-radius", 2));
+        this.rollbackBatchSize = Ludum.getInstance().getConfig().getInt("journal.rollback-batch-size", 2048);
+        this.admission = new AdmissionController(Ludum.getInstance(), Ludum.getInstance().getMainExecutor(), this.timerWheel, Ludum.getInstance().getConfig().getConfigurationSection("admission"));
+        this.profiler = new TickProfiler();
+        this.index = new GameIndex<>();
+        Path worldContainer = Bukkit.getWorldContainer().toPath();
+        this.reaper = new WorldReaper(worldContainer.resolve(".ludum-trash"), Ludum.getInstance().getIoExecutor(), Ludum.getInstance().getConfig().getConfigurationSection("deletion"));
+        this.reaper.sweep(worldContainer);
+        this.manifests = new ConcurrentHashMap<>();
+        this.templateCache = new TemplateCache(dataFolder.resolve("minigames"), dataFolder.resolve("cache"), Ludum.getInstance().getIoExecutor(), Ludum.getInstance().getConfig().getConfigurationSection("template-cache"));
+        this.worldPool = new WorldPool(this, Ludum.getInstance().getConfig().getConfigurationSection("world-pool"));
+        this.matchmaker = new Matchmaker(this, Ludum.getInstance().getConfig().getConfigurationSection("matchmaking"));
+        this.autoscaler = new Autoscaler(this, this.matchmaker, Ludum.getInstance().getConfig().getConfigurationSection("autoscaler"));
+        this.eventBus = new GameEventBus(Ludum.getInstance(), this);
+        this.metrics = Ludum.getInstance().getMetrics();
+        this.mainQueue = new MainThreadQueue(this.metrics, Ludum.getInstance().getConfig().getConfigurationSection("main-thread-work"));
+        this.teleportBatchSize = Math.max(1, Ludum.getInstance().getConfig().getInt("main-thread-work.teleport-batch-size", 8));
+        this.coordinator = new StartCoordinator(Ludum.getInstance().getIoExecutor()::isSaturated, this.mainQueue, this.metrics, Ludum.getInstance().getConfig().getConfigurationSection("start-queue"));
+    }
+
+    @ApiStatus.Internal
+    public int allocateId()
+    {
+        return this.ids.acquire();
+    }
+
+    @ApiStatus.Internal
+    public void releaseId(int id)
+    {
+        this.ids.release(id);
     }
 
-    private int nextId()
+    @ApiStatus.Internal
+    public CompletableFuture<?> loadWorld(String name, String output)
     {
-        int id = 0;
-        while (true)
+        return runIo(() ->
         {
-            if (!this.usedIds.contains(id))
+            LoadWorldEvent event = new LoadWorldEvent();
+            event.begin();
+            event.template = name;
+            event.folder = output;
+            try
             {
-                this.usedIds.add(id);
-                return id;
+                long start = System.nanoTime();
+                Path dst = Bukkit.getWorldContainer().toPath().resolve(output);
+                this.reaper.trashNow(dst);
+                Files.createDirectories(dst);
+                event.trashTime = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                this.manifests.remove(output);
+                event.bytes = this.templateCache.copy(name, dst);
+                this.manifests.put(output, this.templateCache.capture(dst));
+                event.copyTime = System.nanoTime() - start;
             }
-            id++;
+            catch (IOException e)
+            {
+                throw new CompletionException("Failed to load world template: " + name, e);
+            }
+            finally
+            {
+                event.commit();
+            }
+        });
+    }
+
+    private static CompletableFuture<?> runIo(Runnable task)
+    {
+        return supplyIo(() ->
+        {
+            task.run();
+            return null;
+        });
+    }
+
+    private static <T> CompletableFuture<T> supplyIo(Supplier<T> task)
+    {
+        try
+        {
+            return CompletableFuture.supplyAsync(task, Ludum.getInstance().getIoExecutor());
+        }
+        catch (RejectedExecutionException e)
+        {
+            return CompletableFuture.failedFuture(new CommandException("Too many worlds are being prepared, try again shortly", e));
         }
     }
 
-    private CompletableFuture<?> loadWorld(String name, String output)
+    /**
+     * Restores a world folder that was unloaded without being deleted back to its template. Only files the game changed are copied again if the folder was created by {@link #loadWorld(String, String)}, otherwise the whole template is loaded.
+     *
+     * @param name   The name of the world template
+     * @param output The world folder to restore
+     * @return A future for when the folder is ready to be loaded again
+     */
+    private CompletableFuture<?> restoreWorld(String name, String output)
     {
-        return CompletableFuture.runAsync(() ->
+        WorldManifest manifest = this.manifests.get(output);
+        if (manifest == null)
+            return this.loadWorld(name, output);
+
+        return runIo(() ->
         {
             try
             {
-                Path dst = Paths.get(output);
-                if (Files.exists(dst))
-                    deleteRecursive(dst);
-                Files.createDirectories(dst);
-
-                Path src = Ludum.getInstance().getDataFolder().toPath().resolve("minigames/" + name);
-                if (Files.isDirectory(src))
-                {
-                    Files.walkFileTree(src, new SimpleFileVisitor<>()
-                    {
-                        @Override
-                        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException
-                        {
-                            Files.createDirectories(dst.resolve(src.relativize(dir)));
-                            return FileVisitResult.CONTINUE;
-                        }
-
-                        @Override
-                        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException
-                        {
-                            Files.copy(file, dst.resolve(src.relativize(file)));
-                            return FileVisitResult.CONTINUE;
-                        }
-                    });
-                    return;
-                }
+                this.manifests.put(output, this.templateCache.restore(name, Bukkit.getWorldContainer().toPath().resolve(output), manifest));
+            }
+            catch (IOException e)
+            {
+                throw new CompletionException("Failed to restore world template: " + name, e);
+            }
+        });
+    }
 
-                try (ZipInputStream zip = new ZipInputStream(new FileInputStream(Ludum.getInstance().getDataFolder().toPath().resolve("minigames/" + name + ".zip").toFile())))
-                {
-                    ZipEntry entry = zip.getNextEntry();
-                    while (entry != null)
-                    {
-                        Path filePath = dst.resolve(entry.getName());
-                        if (entry.isDirectory())
-                        {
-                            Files.createDirectories(filePath);
-                        }
-                        else
-                        {
-                            Files.createFile(filePath);
-                            try (FileOutputStream os = new FileOutputStream(filePath.toFile()))
-                            {
-                                byte[] buffer = new byte[4096];
-                                int read;
-                                while ((read = zip.read(buffer)) != -1)
-                                {
-                                    os.write(buffer, 0, read);
-                                }
-                            }
-                        }
-
-                        zip.closeEntry();
-                        entry = zip.getNextEntry();
-                    }
-                }
+    @ApiStatus.Internal
+    public CompletableFuture<Path> convertTemplate(String name)
+    {
+        return supplyIo(() ->
+        {
+            try
+            {
+                return this.templateCache.convert(name);
             }
             catch (IOException e)
             {
-                throw new CompletionException("Failed to load world ZIP: " + name + ".zip", e);
+                throw new CompletionException("Failed to convert world template: " + name, e);
             }
-        }, Ludum.getInstance().getBackgroundExecutor());
+        });
+    }
+
+    @ApiStatus.Internal
+    public World createWorld(int id, WorldProfile profile)
+    {
+        WorldCreator creator = new WorldCreator("mini" + id, new NamespacedKey(Ludum.getInstance(), "mini" + id));
+        if (profile.isVoidGeneration())
+            creator.generator(VoidChunkGenerator.INSTANCE);
+        World world = Bukkit.createWorld(creator);
+        if (world == null)
+            throw new CommandException("Failed to create minigame server");
+
+        if (profile.isKeepSpawnInMemory() != null)
+            world.setKeepSpawnInMemory(profile.isKeepSpawnInMemory());
+        if (profile.isAutoSave() != null)
+            world.setAutoSave(profile.isAutoSave());
+        // Chunks within the view distance are ticked, the no-tick view distance only controls what is sent to players
+        if (profile.getSimulationDistance() != -1)
+            world.setViewDistance(profile.getSimulationDistance());
+        if (profile.getViewDistance() != -1)
+            world.setNoTickViewDistance(profile.getViewDistance());
+        profile.getGameRules().forEach((rule, value) -> setGameRule(world, rule, value));
+        return world;
+    }
+
+    private World createWorld(int id, WorldProfile profile, StartGameEvent event)
+    {
+        long start = System.nanoTime();
+        World world = this.createWorld(id, profile);
+        event.createWorldTime = System.nanoTime() - start;
+        return world;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void setGameRule(World world, GameRule<T> rule, Object value)
+    {
+        world.setGameRule(rule, (T) value);
+    }
+
+    /**
+     * Unloads and deletes a world that was never handed to a running game, then frees its id.
+     *
+     * @param id    The id of the world
+     * @param world The loaded world or <code>null</code> if it was only extracted
+     */
+    @ApiStatus.Internal
+    public void discardWorld(int id, @Nullable World world)
+    {
+        Runnable delete = () ->
+        {
+            this.manifests.remove("mini" + id);
+            this.reaper.trash(Bukkit.getWorldContainer().toPath().resolve("mini" + id)).whenComplete((__, e) ->
+            {
+                // An id whose folder could not be removed stays reserved so no new game loads the old world
+                if (e != null)
+                {
+                    Bukkit.getLogger().warning("Failed to remove world mini" + id);
+                    e.printStackTrace();
+                    return;
+                }
+                this.releaseId(id);
+            });
+        };
+        if (world != null)
+        {
+            Runnable unload = () ->
+            {
+                Bukkit.unloadWorld(world, false);
+                delete.run();
+            };
+            // The scheduler rejects new tasks while disabling, so unload right away if possible
+            if (Bukkit.isPrimaryThread())
+                unload.run();
+            else
+                Ludum.getInstance().getMainExecutor().execute(unload);
+        }
+        else
+        {
+            delete.run();
+        }
     }
 
     @ApiStatus.Internal
     public void tick()
     {
-        this.endingGames.forEach((name, future) -> this.getRunningGame(name).ifPresent(game ->
+        TickEvent event = new TickEvent();
+        event.begin();
+        long start = System.nanoTime();
+
+        // Commands from async ticks that missed the last deadline
+        this.asyncPhase.apply();
+
+        if (!this.endingGames.isEmpty())
         {
-            try
+            for (String name : this.endingGames.keySet())
             {
-                game.close();
-                this.runningGames.remove(name, game);
-                this.usedIds.remove(game.id);
-                future.complete(true);
+                RunningGame game = this.runningGames.get(name);
+                // A game cannot be closed while its async tick is still using it
+                if (game != null && game.asyncTask != null && game.asyncTask.isRunning())
+                    continue;
+                CompletableFuture<Boolean> future = this.endingGames.remove(name);
+                if (future != null && game != null && game != CREATING)
+                    this.end(game, future);
             }
-            catch (Throwable t)
+        }
+
+        if (this.gamesChanged)
+        {
+            this.gamesChanged = false;
+            RunningGame[] games = this.runningGames.values().stream().filter(game -> game != CREATING).toArray(RunningGame[]::new);
+            this.scheduler.setEntries(Arrays.stream(games).map(game -> game.tickEntry).toArray(TickScheduler.Entry[]::new));
+            this.asyncPhase.setTasks(Arrays.stream(games).map(game -> game.asyncTask).filter(Objects::nonNull).toArray(AsyncTickPhase.Task[]::new));
+        }
+
+        long phase = System.nanoTime();
+        event.housekeepingTime = phase - start;
+
+        // Pool upkeep runs on the main thread while games compute their async ticks
+        this.asyncPhase.begin(this.scheduler);
+        this.worldPool.tick();
+        this.asyncPhase.join();
+        this.asyncPhase.apply();
+        event.asyncTime = System.nanoTime() - phase;
+
+        // Scheduled tasks run every server tick, even for games with a longer tick interval
+        phase = System.nanoTime();
+        this.timerWheel.tick();
+        event.timerTime = System.nanoTime() - phase;
+
+        phase = System.nanoTime();
+        this.scheduler.tick();
+        event.gameTickTime = System.nanoTime() - phase;
+
+        phase = System.nanoTime();
+        this.matchmaker.tick();
+        this.autoscaler.tick();
+        event.matchmakingTime = System.nanoTime() - phase;
+
+        // Heavy work runs last so it can use whatever budget it has left in this tick
+        phase = System.nanoTime();
+        this.coordinator.tick();
+        this.mainQueue.tick();
+        event.mainThreadWorkTime = System.nanoTime() - phase;
+
+        event.games = this.index.getGames().size();
+        event.commit();
+    }
+
+    /**
+     * Loads and tickets the chunks around the arena of the specified minigame so the game does not start on cold chunks.
+     *
+     * @param world    The world the game is in
+     * @param minigame The minigame to warm the arena of
+     * @return A future for the tickets that were added once every chunk has loaded
+     */
+    private CompletableFuture<long[]> warmArena(World world, Minigame minigame)
+    {
+        if (!this.warmArenas)
+            return CompletableFuture.completedFuture(new long[0]);
+
+        int radius = minigame.getArenaRadius();
+        Location center = minigame.getArenaCenter(world);
+        long[] chunks = ChunkTickets.around(center.getBlockX() >> 4, center.getBlockZ() >> 4, radius < 0 ? this.defaultArenaRadius : radius);
+        return ChunkTickets.load(world, chunks, Ludum.getInstance()).handle((__, e) ->
+        {
+            if (e != null)
             {
-                future.completeExceptionally(t);
+                // The game can still run, it just has to load the rest of its arena on demand
+                Bukkit.getLogger().warning("Failed to load arena for " + world.getName());
+                e.printStackTrace();
             }
-        }));
-        this.endingGames.clear();
-        this.runningGames.values().forEach(RunningGame::tick);
+            return chunks;
+        });
+    }
+
+    private void end(RunningGame game, CompletableFuture<Boolean> future)
+    {
+        StopGameEvent event = new StopGameEvent();
+        event.begin();
+        event.game = game.name;
+        event.minigame = game.key.toString();
+        event.id = game.id;
+        long requested = System.nanoTime();
+        try
+        {
+            this.runningGames.remove(game.name, game);
+            this.index.remove(game.world.getUID(), game);
+            this.gamesChanged = true;
+            // The id stays reserved until the world folder has been moved out of the way, or until the next startup if it could not be
+            game.close().whenComplete((__, e) ->
+            {
+                if (e == null)
+                    this.releaseId(game.id);
+                event.succeeded = e == null;
+                event.commit();
+                this.metrics.histogram("ludum_game_stop_seconds", "Time from a game ending until its world was unloaded", "minigame", game.key.toString()).observeNanos(System.nanoTime() - requested);
+                if (e != null)
+                    future.completeExceptionally(e);
+                else
+                    future.complete(true);
+            });
+        }
+        catch (Throwable t)
+        {
+            event.commit();
+            future.completeExceptionally(t);
+        }
     }
 
     /**
-     * Starts a new minigame world.
+     * Starts a new minigame world for a player waiting on it.
      *
      * @param name         The minigame world key
      * @param minigameName The name of the minigame to host
      * @return A future for when the game starts running
      */
-    public synchronized CompletableFuture<RunningGame> start(String name, NamespacedKey minigameName)
+    public CompletableFuture<RunningGame> start(String name, NamespacedKey minigameName)
+    {
+        return this.start(name, minigameName, StartPriority.PLAYER);
+    }
+
+    /**
+     * Starts a new minigame world. Starts that need a world extracted or created wait their turn behind starts with a higher priority, see {@link #getQueuePosition(String)}.
+     *
+     * @param name         The minigame world key
+     * @param minigameName The name of the minigame to host
+     * @param priority     How urgently the game is needed
+     * @return A future for when the game starts running, or fails if the start is cancelled while waiting
+     */
+    public CompletableFuture<RunningGame> start(String name, NamespacedKey minigameName, StartPriority priority)
     {
-        if (this.runningGames.containsKey(name))
+        if (this.runningGames.putIfAbsent(name, CREATING) != null)
             throw new CommandException("Minigame server already exists");
-        this.runningGames.put(name, CREATING);
 
-        Minigame minigame = MinigameRegistry.create(minigameName);
+        Minigame minigame;
+        try
+        {
+            minigame = MinigameRegistry.create(minigameName);
+        }
+        catch (RuntimeException e)
+        {
+            this.runningGames.remove(name, CREATING);
+            throw e;
+        }
         Executor executor = Ludum.getInstance().getMainExecutor();
-        int id = this.nextId();
-        return this.loadWorld(minigame.getWorldName(), "mini" + id).thenApplyAsync(__ ->
-        {
-            World world = Bukkit.createWorld(new WorldCreator("mini" + id, new NamespacedKey(Ludum.getInstance(), "mini" + id)));
-            if (world == null)
-                throw new CommandException("Failed to create minigame server");
-            RunningGame game = new RunningGame(name, minigame, world, id);
-            this.runningGames.put(name, game);
-            return game;
-        }, executor).exceptionallyAsync(e ->
+        WorldPool.Slot slot = this.worldPool.claim(minigameName);
+        int id = slot != null ? slot.getId() : this.allocateId();
+
+        StartGameEvent event = new StartGameEvent();
+        event.begin();
+        event.game = name;
+        event.minigame = minigameName.toString();
+        event.template = minigame.getWorldName();
+        event.id = id;
+        event.pooled = slot != null;
+        long requested = System.nanoTime();
+        this.registerGameMetrics(minigameName);
+
+        // Worlds are always created on the main thread, so the game can be set up as soon as the world is ready
+        CompletableFuture<World> worldFuture;
+        Executor gameExecutor = Runnable::run;
+        if (slot == null)
+        {
+            // Extraction waits while the disk queue is saturated, so a burst of starts queues here instead of being turned away
+            worldFuture = this.coordinator.extract(name, priority, () -> this.loadWorld(minigame.getWorldName(), "mini" + id)).thenCompose(__ ->
+            {
+                event.loadTime = System.nanoTime() - requested;
+                return this.coordinator.create(name, priority, () -> this.createWorld(id, minigame.getWorldProfile(), event));
+            });
+        }
+        else if (slot.getWorld() == null)
+        {
+            worldFuture = this.coordinator.create(name, priority, () -> this.createWorld(id, minigame.getWorldProfile(), event));
+        }
+        else
+        {
+            worldFuture = CompletableFuture.completedFuture(slot.getWorld());
+            if (!Bukkit.isPrimaryThread())
+                gameExecutor = executor;
+        }
+
+        // Paper completes chunk futures on the main thread, so the game is still created there once the arena is loaded
+        return worldFuture.thenComposeAsync(world ->
+        {
+            long arena = System.nanoTime();
+            return this.warmArena(world, minigame).thenApply(chunks ->
+            {
+                long ready = System.nanoTime();
+                event.arenaTime = ready - arena;
+                this.profiler.getReadyTimes(minigame.getWorldName()).record(ready - requested);
+                RunningGame game = new RunningGame(name, minigameName, minigame, world, id, chunks);
+                event.initTime = System.nanoTime() - ready;
+                this.runningGames.replace(name, CREATING, game);
+                this.index.add(world.getUID(), game);
+                this.gamesChanged = true;
+                world.getPlayers().forEach(player -> this.index.addPlayer(player.getUniqueId(), game));
+                event.succeeded = true;
+                event.commit();
+                this.metrics.histogram("ludum_game_start_seconds", "Time from a start request until the game was running", "minigame", minigameName.toString()).observeNanos(System.nanoTime() - requested);
+                return game;
+            });
+        }, gameExecutor).exceptionallyAsync(e ->
+        {
+            event.commit();
+            this.metrics.counter("ludum_game_start_failures_total", "Games that failed to start", "minigame", minigameName.toString()).increment();
+            this.runningGames.remove(name, CREATING);
+            // The world may already have been created by the time setting up the game failed
+            this.discardWorld(id, Bukkit.getWorld("mini" + id));
+            throw new CompletionException(e);
+        }, executor);
+    }
+
+    private void registerGameMetrics(NamespacedKey key)
+    {
+        String minigame = key.toString();
+        this.metrics.counter("ludum_game_starts_total", "Games requested to start", "minigame", minigame).increment();
+        this.metrics.gauge("ludum_games_running", "Games currently running", () -> this.index.getGames().stream().filter(game -> key.equals(game.key)).count(), "minigame", minigame);
+    }
+
+    /**
+     * Resets the specified game to the start of a new round in the same world and id. Must be called on the main thread.
+     *
+     * @param game The game to reset
+     * @return A future for the new game once the world has been restored and the players moved back in
+     */
+    private CompletableFuture<RunningGame> reset(RunningGame game)
+    {
+        if (game.asyncTask != null && game.asyncTask.isRunning())
+            throw new CommandException("Cannot reset " + game.name + " while it is ticking");
+        if (this.endingGames.containsKey(game.name))
+            throw new CommandException("Minigame server is stopping: " + game.name);
+
+        Minigame minigame = MinigameRegistry.create(game.key);
+        if (!this.runningGames.replace(game.name, game, CREATING))
+            throw new CommandException("Unknown server: " + game.name);
+        this.index.remove(game.world.getUID(), game);
+        this.gamesChanged = true;
+
+        Executor executor = Ludum.getInstance().getMainExecutor();
+        String folder = game.world.getName();
+        List<Player> players = new ArrayList<>(game.world.getPlayers());
+        long requested = System.nanoTime();
+        game.metrics.close();
+        CompletableFuture<Object> unloaded = CompletableFuture.completedFuture(null).thenCompose(__ ->
+        {
+            game.game.close();
+            game.game.cancelTasks();
+            if (game.journal != null)
+                game.journal.cancel();
+            return this.evacuate(players);
+        }).thenCompose(__ -> this.mainQueue.submit("unload-world", () ->
+        {
+            // The folder is kept so only the files the round touched have to be restored
+            ChunkTickets.release(game.world, game.arenaChunks, Ludum.getInstance());
+            if (!Bukkit.unloadWorld(game.world, false))
+                throw new IllegalStateException("Failed to unload " + folder);
+            return null;
+        }));
+
+        // The restored world waits its turn in the start queue like any other start a player is waiting on
+        CompletableFuture<?> restored = unloaded.thenCompose(__ -> this.coordinator.extract(game.name, StartPriority.PLAYER, () -> this.restoreWorld(minigame.getWorldName(), folder)));
+        CompletableFuture<World> worldFuture = restored.thenCompose(__ -> this.coordinator.create(game.name, StartPriority.PLAYER, () -> this.createWorld(game.id, minigame.getWorldProfile())));
+
+        return worldFuture.thenCompose(world -> this.warmArena(world, minigame).thenApply(chunks ->
         {
-            this.runningGames.remove(name);
-            this.usedIds.remove(id);
+            this.profiler.getResetTimes(minigame.getWorldName()).record(System.nanoTime() - requested);
+            RunningGame reset = new RunningGame(game.name, game.key, minigame, world, game.id, chunks);
+            this.runningGames.replace(game.name, CREATING, reset);
+            this.index.add(world.getUID(), reset);
+            this.gamesChanged = true;
+            reset.addPlayers(players.stream().filter(player -> player.isOnline() && this.getGameOf(player) == null).collect(Collectors.toList()));
+            return reset;
+        })).exceptionallyAsync(e ->
+        {
+            this.runningGames.remove(game.name, CREATING);
+            this.discardWorld(game.id, Bukkit.getWorld(folder));
             throw new CompletionException(e);
         }, executor);
     }
 
+    /**
+     * Moves the specified players to the main world in batches, so a full world does not teleport everyone in the same tick.
+     *
+     * @param players The players to move
+     * @return A future for when every player has arrived
+     */
+    private CompletableFuture<Void> evacuate(List<Player> players)
+    {
+        Location spawn = Ludum.getInstance().getOverworld().getSpawnLocation();
+        List<CompletableFuture<?>> batches = new ArrayList<>();
+        for (int i = 0; i < players.size(); i += this.teleportBatchSize)
+        {
+            List<Player> batch = players.subList(i, Math.min(players.size(), i + this.teleportBatchSize));
+            batches.add(this.mainQueue.submit("teleport", () -> CompletableFuture.allOf(batch.stream().map(player -> player.teleportAsync(spawn)).toArray(CompletableFuture[]::new))).thenCompose(future -> future));
+        }
+        return CompletableFuture.allOf(batches.toArray(CompletableFuture[]::new));
+    }
+
     /**
      * Stops the minigame with the specified id.
      *
      * @param name The id of the minigame to stop
      * @return A future for when the minigame actually ends
      */
-    public synchronized CompletableFuture<Boolean> stop(String name)
+    public CompletableFuture<Boolean> stop(String name)
     {
         RunningGame game = this.runningGames.get(name);
         if (game == null || game == CREATING)
             throw new CommandException("Unknown server: " + name);
-        CompletableFuture<Boolean> future = new CompletableFuture<>();
-        this.endingGames.put(name, future);
-        return future;
+        return this.endingGames.computeIfAbsent(name, __ -> new CompletableFuture<>());
+    }
+
+    /**
+     * Cancels a start that is still waiting for its turn.
+     *
+     * @param name The name of the game being started
+     * @return Whether the start was still waiting and has been cancelled
+     */
+    public boolean cancel(String name)
+    {
+        return this.coordinator.cancel(name);
+    }
+
+    /**
+     * Retrieves how many starts are ahead of the specified one.
+     *
+     * @param name The name of the game being started
+     * @return The position in the queue counting from <code>1</code>, or <code>0</code> if the start is not waiting
+     */
+    public int getQueuePosition(String name)
+    {
+        return this.coordinator.getPosition(name);
     }
 
     /**
@@ -218,9 +685,57 @@ public class MinigameManager
      */
     public void close()
     {
-        this.runningGames.values().forEach(RunningGame::close);
+        this.coordinator.clear();
+        this.mainQueue.close();
+        this.matchmaker.clear();
+        this.worldPool.close();
+        this.runningGames.values().forEach(RunningGame::shutdown);
         this.runningGames.clear();
-        this.usedIds.clear();
+        this.index.clear();
+        this.endingGames.clear();
+        this.ids.clear();
+        this.scheduler.setEntries(new TickScheduler.Entry[0]);
+        this.asyncPhase.setTasks(new AsyncTickPhase.Task[0]);
+        this.eventBus.close();
+    }
+
+    @ApiStatus.Internal
+    public TimerWheel getTimerWheel()
+    {
+        return timerWheel;
+    }
+
+    /**
+     * @return The matchmaker that groups queued players into games
+     */
+    @ApiStatus.Internal
+    public Matchmaker getMatchmaker()
+    {
+        return matchmaker;
+    }
+
+    @ApiStatus.Internal
+    public StartCoordinator getCoordinator()
+    {
+        return coordinator;
+    }
+
+    @ApiStatus.Internal
+    public GameEventBus getEventBus()
+    {
+        return eventBus;
+    }
+
+    @ApiStatus.Internal
+    public AdmissionController getAdmission()
+    {
+        return admission;
+    }
+
+    @ApiStatus.Internal
+    public TickProfiler getProfiler()
+    {
+        return profiler;
     }
 
     /**
@@ -229,7 +744,7 @@ public class MinigameManager
      * @param name The name of the server running
      * @return The game with that name
      */
-    public synchronized Optional<RunningGame> getRunningGame(String name)
+    public Optional<RunningGame> getRunningGame(String name)
     {
         return Optional.ofNullable(this.runningGames.get(name));
     }
@@ -240,17 +755,58 @@ public class MinigameManager
      * @param worldId The id of the world on the running server
      * @return The game with that world
      */
-    public synchronized Optional<RunningGame> getRunningGame(UUID worldId)
+    public Optional<RunningGame> getRunningGame(UUID worldId)
+    {
+        return Optional.ofNullable(this.index.getByWorld(worldId));
+    }
+
+    /**
+     * Retrieves the running game taking place in the specified world.
+     *
+     * @param world The world to check
+     * @return The game in that world or <code>null</code> if the world is not a minigame world
+     */
+    @Nullable
+    public RunningGame getGameIn(World world)
+    {
+        return this.index.getByWorld(world.getUID());
+    }
+
+    /**
+     * Retrieves the running game the specified player is currently in.
+     *
+     * @param player The player to check
+     * @return The game that player is in or <code>null</code> if they are not in a minigame
+     */
+    @Nullable
+    public RunningGame getGameOf(Player player)
+    {
+        return this.index.getByPlayer(player.getUniqueId());
+    }
+
+    /**
+     * Updates which game the specified player is in after they move to a different world.
+     *
+     * @param player The player to update
+     */
+    @ApiStatus.Internal
+    public void updatePlayer(Player player)
     {
-        return this.runningGames.values().stream().filter(game -> game.world != null && game.world.getUID().equals(worldId)).findFirst();
+        this.index.movePlayer(player.getUniqueId(), player.getWorld().getUID());
+    }
+
+    @ApiStatus.Internal
+    public void removePlayer(Player player)
+    {
+        this.index.removePlayer(player.getUniqueId());
     }
 
     /**
      * @return A set of all running games
      */
-    public synchronized Set<String> getRunningGames()
+    public Set<String> getRunningGames()
     {
-        return this.runningGames.keySet();
+        return Collections.unmodifiableSet(this.runningGames.keySet());
     }
 
     /**
@@ -261,45 +817,127 @@ public class MinigameManager
     public static class RunningGame
     {
         private final String name;
+        private final NamespacedKey key;
         private final Minigame game;
         private final World world;
         private final int id;
+        private final RollingHistogram tickTimes;
+        private final TickScheduler.Entry tickEntry;
+        private final AsyncTickPhase.Task asyncTask;
+        private final long[] arenaChunks;
+        private final BlockJournal journal;
+        private final MetricRegistry metrics;
 
         private RunningGame()
         {
             this.name = null;
+            this.key = null;
             this.game = null;
             this.world = null;
             this.id = -1;
+            this.tickTimes = new RollingHistogram();
+            this.tickEntry = null;
+            this.asyncTask = null;
+            this.arenaChunks = new long[0];
+            this.journal = null;
+            this.metrics = null;
         }
 
-        private RunningGame(String name, Minigame game, World world, int id)
+        private RunningGame(String name, NamespacedKey key, Minigame game, World world, int id, long[] arenaChunks)
         {
             this.name = name;
+            this.key = key;
             this.game = game;
             this.world = world;
             this.id = id;
+            this.tickTimes = new RollingHistogram();
+            this.tickEntry = new TickScheduler.Entry(name, this::tick, game.getTickInterval(), game.getTickPriority());
+            this.asyncTask = game.hasAsyncTick() ? new AsyncTickPhase.Task(name, game, this.tickEntry) : null;
+            this.arenaChunks = arenaChunks;
+            this.journal = game.hasBlockJournal() ? new BlockJournal(Ludum.getInstance().getMinigameManager().timerWheel, Ludum.getInstance().getMinigameManager().rollbackBatchSize) : null;
+            this.metrics = Ludum.getInstance().getMetrics().scoped("game", name, "minigame", key.toString());
+            this.metrics.gauge("ludum_game_players", "Players in the game", () -> Ludum.getInstance().getMinigameManager().index.countPlayers(this));
             this.game.setWorld(world);
+            this.game.setMetrics(this.metrics);
+            GameEventBus eventBus = Ludum.getInstance().getMinigameManager().eventBus;
+            eventBus.prepare(game.getClass());
+            eventBus.prepare(game.getState().getClass());
             this.game.init();
         }
 
         protected void tick()
         {
+            // The async tick missed its deadline, so the main thread tick waits until its results are in
+            if (this.asyncTask != null && this.asyncTask.isRunning())
+                return;
+            long start = System.nanoTime();
             this.game.tick();
+            this.tickTimes.record(System.nanoTime() - start);
         }
 
-        protected void close()
+        protected CompletableFuture<?> close()
         {
-            Ludum framework = Ludum.getInstance();
-            Location spawn = framework.getOverworld().getSpawnLocation();
+            MinigameManager manager = Ludum.getInstance().getMinigameManager();
+            CloseGameEvent event = this.createCloseEvent();
 
+            long start = System.nanoTime();
             this.game.close();
-            CompletableFuture.allOf(this.world.getPlayers().stream().map(player -> player.teleportAsync(spawn)).toArray(CompletableFuture[]::new)).thenRunAsync(() ->
+            this.game.cancelTasks();
+            if (this.journal != null)
+                this.journal.cancel();
+            long teleport = System.nanoTime();
+            event.closeTime = teleport - start;
+            return manager.evacuate(new ArrayList<>(this.world.getPlayers())).thenCompose(__ ->
             {
-                Path folder = this.world.getWorldFolder().toPath();
-                Bukkit.unloadWorld(this.world, false);
-                framework.getBackgroundExecutor().execute(() -> deleteRecursive(folder));
-            }, framework.getMainExecutor());
+                event.teleportTime = System.nanoTime() - teleport;
+                return manager.mainQueue.submit("unload-world", () -> this.unload(event)).thenCompose(future -> future);
+            });
+        }
+
+        /**
+         * Closes this game right away without waiting for players to be moved. Used when the plugin is disabled and can no longer schedule tasks.
+         */
+        protected void shutdown()
+        {
+            Location spawn = Ludum.getInstance().getOverworld().getSpawnLocation();
+            CloseGameEvent event = this.createCloseEvent();
+
+            long start = System.nanoTime();
+            this.game.close();
+            this.game.cancelTasks();
+            if (this.journal != null)
+                this.journal.cancel();
+            long teleport = System.nanoTime();
+            event.closeTime = teleport - start;
+            this.world.getPlayers().forEach(player -> player.teleport(spawn));
+            event.teleportTime = System.nanoTime() - teleport;
+            this.unload(event);
+        }
+
+        private CloseGameEvent createCloseEvent()
+        {
+            CloseGameEvent event = new CloseGameEvent();
+            event.begin();
+            event.game = this.name;
+            event.id = this.id;
+            event.players = this.world.getPlayers().size();
+            return event;
+        }
+
+        private CompletableFuture<?> unload(CloseGameEvent event)
+        {
+            this.metrics.close();
+            long start = System.nanoTime();
+            Path folder = this.world.getWorldFolder().toPath();
+            Ludum.getInstance().getMinigameManager().manifests.remove(this.world.getName());
+            ChunkTickets.release(this.world, this.arenaChunks, Ludum.getInstance());
+            Bukkit.unloadWorld(this.world, false);
+            long trash = System.nanoTime();
+            event.unloadTime = trash - start;
+            CompletableFuture<?> future = Ludum.getInstance().getMinigameManager().reaper.trash(folder);
+            event.trashTime = System.nanoTime() - trash;
+            event.commit();
+            return future;
         }
 
         /**
@@ -313,11 +951,62 @@ public class MinigameManager
             if (!this.game.canJoin(player))
                 return false;
 
+            AddPlayerEvent event = this.createAddEvent(player, false);
+            Location location = this.getJoinLocation(player);
+            player.teleportAsync(location, PlayerTeleportEvent.TeleportCause.COMMAND).thenRunAsync(() ->
+            {
+                Ludum.getInstance().getMinigameManager().updatePlayer(player);
+                this.game.addPlayer(player);
+                event.commit();
+            }, Ludum.getInstance().getMainExecutor());
+            return true;
+        }
+
+        /**
+         * Adds a group of players at once, for example when a match starts. Must be called on the main thread.
+         * <p>The chunks around every join location are loaded before anyone is moved, and players are then teleported in small waves so the chunk loader is not flooded in a single tick.</p>
+         *
+         * @param players The players to add
+         * @return A future for the players that were added once every wave has arrived
+         */
+        public CompletableFuture<List<Player>> addPlayers(Collection<Player> players)
+        {
+            MinigameManager manager = Ludum.getInstance().getMinigameManager();
+            Map<Player, Location> locations = new LinkedHashMap<>();
+            Map<Player, AddPlayerEvent> events = new HashMap<>();
+            for (Player player : players)
+            {
+                if (this.game.canJoin(player))
+                {
+                    locations.put(player, this.getJoinLocation(player));
+                    events.put(player, this.createAddEvent(player, true));
+                }
+            }
+            return manager.admission.admit(this.world, locations, player ->
+            {
+                manager.updatePlayer(player);
+                this.game.addPlayer(player);
+                events.get(player).commit();
+            }, () -> manager.getGameIn(this.world) == this);
+        }
+
+        private AddPlayerEvent createAddEvent(Player player, boolean batched)
+        {
+            AddPlayerEvent event = new AddPlayerEvent();
+            event.begin();
+            event.game = this.name;
+            event.id = this.id;
+            event.player = player.getName();
+            event.batched = batched;
+            return event;
+        }
+
+        private Location getJoinLocation(Player player)
+        {
             Location location = this.game.positionJoiningPlayer(player).clone();
             location.add(0.5, 0, 0.5);
             location.setWorld(this.world);
-            player.teleportAsync(location, PlayerTeleportEvent.TeleportCause.COMMAND).thenRunAsync(() -> this.game.addPlayer(player), Ludum.getInstance().getMainExecutor());
-            return true;
+            return location;
         }
 
         /**
@@ -327,10 +1016,40 @@ public class MinigameManager
          */
         public void removePlayer(Player player)
         {
-            if (!this.world.getPlayers().contains(player))
+            if (!this.world.equals(player.getWorld()))
                 return;
+            RemovePlayerEvent event = new RemovePlayerEvent();
+            event.begin();
+            event.game = this.name;
+            event.id = this.id;
+            event.player = player.getName();
+            Ludum.getInstance().getMinigameManager().removePlayer(player);
             this.game.removePlayer(player);
-            player.teleportAsync(Ludum.getInstance().getOverworld().getSpawnLocation());
+            player.teleportAsync(Ludum.getInstance().getOverworld().getSpawnLocation()).thenRun(event::commit);
+        }
+
+        /**
+         * Restores every block journaled since this game started or last rolled back. Must be called on the main thread.
+         *
+         * @return A future for when every block has been restored
+         * @throws IllegalStateException If the minigame does not keep a block journal
+         */
+        public CompletableFuture<Void> rollback()
+        {
+            if (this.journal == null)
+                throw new IllegalStateException(this.name + " does not keep a block journal");
+            return this.journal.rollback(this.world);
+        }
+
+        /**
+         * Ends the current round and starts a fresh one in the same world. The world is unloaded without being deleted, only the files the round changed are restored from the template and the players in the game are moved back in once the arena is loaded.
+         * <p>Must be called on the main thread.</p>
+         *
+         * @return A future for the game running the new round
+         */
+        public CompletableFuture<RunningGame> reset()
+        {
+            return Ludum.getInstance().getMinigameManager().reset(this);
         }
 
         /**
@@ -340,21 +1059,53 @@ public class MinigameManager
         {
             return name;
         }
-    }
 
-    private static void deleteRecursive(Path folder)
-    {
-        if (!Files.exists(folder))
-            return;
-        try
+        /**
+         * @return The registered minigame this game was started from
+         */
+        public NamespacedKey getKey()
+        {
+            return key;
+        }
+
+        /**
+         * @return The minigame being played
+         */
+        public Minigame getMinigame()
+        {
+            return game;
+        }
+
+        /**
+         * @return The block journal of this game or <code>null</code> if the minigame does not keep one
+         */
+        @Nullable
+        @ApiStatus.Internal
+        public BlockJournal getJournal()
         {
-            Path[] paths = Files.walk(folder).sorted(Comparator.reverseOrder()).toArray(Path[]::new);
-            for (Path path : paths)
-                Files.delete(path);
+            return journal;
         }
-        catch (Exception e)
+
+        @ApiStatus.Internal
+        public RollingHistogram getTickTimes()
+        {
+            return tickTimes;
+        }
+
+        /**
+         * @return The number of server ticks this game did not tick on because of its tick interval
+         */
+        public long getSkippedTicks()
+        {
+            return this.tickEntry.getSkippedTicks();
+        }
+
+        /**
+         * @return The number of times this game's tick was put off because the server ran out of time
+         */
+        public long getDeferredTicks()
         {
-            e.printStackTrace();
+            return this.tickEntry.getDeferredTicks();
         }
     }
 }
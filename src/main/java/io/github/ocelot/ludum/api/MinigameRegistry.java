@@ -17,6 +17,7 @@ import java.util.function.Supplier;
 public final class MinigameRegistry
 {
     private static final Map<NamespacedKey, Supplier<Minigame>> MINIGAMES = new HashMap<>();
+    private static final Map<NamespacedKey, int[]> PLAYER_LIMITS = new HashMap<>();
 
     private MinigameRegistry()
     {
@@ -26,6 +27,7 @@ public final class MinigameRegistry
     public static void flush()
     {
         MINIGAMES.clear();
+        PLAYER_LIMITS.clear();
     }
 
     /**
@@ -35,8 +37,22 @@ public final class MinigameRegistry
      * @param minigame The minigame to register
      */
     public static synchronized void register(NamespacedKey name, Supplier<Minigame> minigame)
+    {
+        register(name, minigame, -1, -1);
+    }
+
+    /**
+     * Registers a new minigame under the specified name with the number of players matchmaking groups into one game.
+     *
+     * @param name       The name of the minigame to register
+     * @param minigame   The minigame to register
+     * @param minPlayers The fewest players matchmaking will start the minigame with, or <code>-1</code> to use the configured default
+     * @param maxPlayers The most players matchmaking will put into the minigame, or <code>-1</code> to use the configured default
+     */
+    public static synchronized void register(NamespacedKey name, Supplier<Minigame> minigame, int minPlayers, int maxPlayers)
     {
         MINIGAMES.put(name, minigame);
+        PLAYER_LIMITS.put(name, new int[]{minPlayers, maxPlayers});
     }
 
     /**
@@ -53,6 +69,26 @@ public final class MinigameRegistry
         return MINIGAMES.get(name).get();
     }
 
+    /**
+     * @param name The name of the minigame to check
+     * @return The fewest players matchmaking will start that minigame with, or <code>-1</code> to use the configured default
+     */
+    public static int getMinPlayers(NamespacedKey name)
+    {
+        int[] limits = PLAYER_LIMITS.get(name);
+        return limits != null ? limits[0] : -1;
+    }
+
+    /**
+     * @param name The name of the minigame to check
+     * @return The most players matchmaking will put into that minigame, or <code>-1</code> to use the configured default
+     */
+    public static int getMaxPlayers(NamespacedKey name)
+    {
+        int[] limits = PLAYER_LIMITS.get(name);
+        return limits != null ? limits[1] : -1;
+    }
+
     /**
      * Checks to see if the specified minigame is registered.
      *
@@ -1,5 +1,8 @@
 package io.github.ocelot.ludum.api;
 
+import io.github.ocelot.ludum.core.tick.TimerWheel;
+import org.jetbrains.annotations.Nullable;
+
 /**
  * <p>A single state for a minigame currently running.</p>
  *
@@ -8,6 +11,7 @@ package io.github.ocelot.ludum.api;
 public abstract class MinigameState
 {
     protected final Minigame minigame;
+    private TimerWheel.Scope tasks;
 
     public MinigameState(Minigame minigame)
     {
@@ -24,8 +28,71 @@ public abstract class MinigameState
      */
     public abstract void tick();
 
+    /**
+     * Called off the main thread before {@link #tick()} when the minigame has an async tick.
+     *
+     * @param commands The buffer to submit main thread work to
+     * @see Minigame#tickAsync(CommandBuffer)
+     */
+    public void tickAsync(CommandBuffer commands)
+    {
+    }
+
     /**
      * Cleans up any resources used by this state.
      */
     public abstract void close();
+
+    /**
+     * Runs the specified task once after a delay. The task is cancelled when the minigame leaves this state. Must be called on the main thread.
+     *
+     * @param delay The number of server ticks to wait
+     * @param task  The task to run
+     * @return A handle to cancel the task with
+     * @throws IllegalStateException If called off the main thread
+     */
+    protected ScheduledTask schedule(long delay, Runnable task)
+    {
+        return this.minigame.schedule(this.getTasks(), delay, 0, task);
+    }
+
+    /**
+     * Runs the specified task repeatedly until it is cancelled or the minigame leaves this state. Must be called on the main thread.
+     *
+     * @param delay  The number of server ticks to wait before the first run
+     * @param period The number of server ticks between each run
+     * @param task   The task to run
+     * @return A handle to cancel the task with
+     * @throws IllegalStateException If called off the main thread
+     */
+    protected ScheduledTask repeat(long delay, long period, Runnable task)
+    {
+        return this.minigame.schedule(this.getTasks(), delay, Math.max(1, period), task);
+    }
+
+    /**
+     * Changes to the specified state after a delay, for example at the end of a countdown. The change is cancelled if the minigame leaves this state first. Must be called on the main thread.
+     *
+     * @param delay The number of server ticks to wait
+     * @param state The state to change to
+     * @return A handle to cancel the change with
+     * @throws IllegalStateException If called off the main thread
+     */
+    protected ScheduledTask scheduleState(long delay, @Nullable MinigameState state)
+    {
+        return this.schedule(delay, () -> this.minigame.setState(state));
+    }
+
+    private TimerWheel.Scope getTasks()
+    {
+        if (this.tasks == null)
+            this.tasks = new TimerWheel.Scope();
+        return this.tasks;
+    }
+
+    void cancelTasks()
+    {
+        if (this.tasks != null)
+            this.tasks.cancelAll();
+    }
 }
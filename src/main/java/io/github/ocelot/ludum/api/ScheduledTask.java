@@ -0,0 +1,21 @@
+package io.github.ocelot.ludum.api;
+
+/**
+ * <p>A task scheduled to run on a later tick of a minigame.</p>
+ *
+ * @author Ocelot
+ */
+public interface ScheduledTask
+{
+    /**
+     * Stops this task from running again. Does nothing if the task has already finished or been cancelled. Must be called on the main thread.
+     *
+     * @throws IllegalStateException If called off the main thread
+     */
+    void cancel();
+
+    /**
+     * @return Whether this task will still run
+     */
+    boolean isScheduled();
+}
@@ -0,0 +1,22 @@
+package io.github.ocelot.ludum.api;
+
+/**
+ * <p>How urgently a game has to start when several starts are waiting for disk or main thread time.</p>
+ *
+ * @author Ocelot
+ */
+public enum StartPriority
+{
+    /**
+     * A start someone is waiting on, such as a command.
+     */
+    PLAYER,
+    /**
+     * A start for a match of players that are already queued.
+     */
+    MATCHMAKING,
+    /**
+     * A start or world prepared ahead of time that nobody is waiting on yet.
+     */
+    PREWARM
+}
@@ -0,0 +1,17 @@
+package io.github.ocelot.ludum.api;
+
+/**
+ * <p>How important it is for a minigame to tick on time when the server is running out of time in a tick.</p>
+ *
+ * @author Ocelot
+ */
+public enum TickPriority
+{
+    /**
+     * Always ticks, even when the tick budget is used up.
+     */
+    HIGHEST,
+    HIGH,
+    NORMAL,
+    LOW
+}
@@ -0,0 +1,195 @@
+package io.github.ocelot.ludum.api;
+
+import org.bukkit.GameRule;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>The settings a minigame world is created with.</p>
+ * <p>The defaults create the world the same way Bukkit does, with normal generation and the server's own settings. {@link Builder#lightweight()} tunes a profile for short lived games instead: spawn chunks are not kept loaded, the world is never saved and chunks outside the template are generated empty.</p>
+ *
+ * @author Ocelot
+ */
+public class WorldProfile
+{
+    public static final WorldProfile DEFAULT = builder().build();
+
+    private final Boolean keepSpawnInMemory;
+    private final Boolean autoSave;
+    private final boolean voidGeneration;
+    private final int viewDistance;
+    private final int simulationDistance;
+    private final Map<GameRule<?>, Object> gameRules;
+
+    private WorldProfile(Builder builder)
+    {
+        this.keepSpawnInMemory = builder.keepSpawnInMemory;
+        this.autoSave = builder.autoSave;
+        this.voidGeneration = builder.voidGeneration;
+        this.viewDistance = builder.viewDistance;
+        this.simulationDistance = builder.simulationDistance;
+        this.gameRules = Collections.unmodifiableMap(new LinkedHashMap<>(builder.gameRules));
+    }
+
+    /**
+     * @return A new builder starting from the default settings
+     */
+    public static Builder builder()
+    {
+        return new Builder();
+    }
+
+    /**
+     * @return Whether the chunks around spawn are kept loaded or <code>null</code> to use the server default
+     */
+    @Nullable
+    public Boolean isKeepSpawnInMemory()
+    {
+        return keepSpawnInMemory;
+    }
+
+    /**
+     * @return Whether the world is saved periodically or <code>null</code> to use the server default
+     */
+    @Nullable
+    public Boolean isAutoSave()
+    {
+        return autoSave;
+    }
+
+    /**
+     * @return Whether chunks outside the template are generated empty
+     */
+    public boolean isVoidGeneration()
+    {
+        return voidGeneration;
+    }
+
+    /**
+     * @return The distance in chunks sent to players or <code>-1</code> to use the server default
+     */
+    public int getViewDistance()
+    {
+        return viewDistance;
+    }
+
+    /**
+     * @return The distance in chunks around players that is ticked or <code>-1</code> to use the server default
+     */
+    public int getSimulationDistance()
+    {
+        return simulationDistance;
+    }
+
+    /**
+     * @return The game rules set when the world is created
+     */
+    public Map<GameRule<?>, Object> getGameRules()
+    {
+        return gameRules;
+    }
+
+    /**
+     * <p>Creates {@link WorldProfile} instances.</p>
+     *
+     * @author Ocelot
+     */
+    public static class Builder
+    {
+        private Boolean keepSpawnInMemory;
+        private Boolean autoSave;
+        private boolean voidGeneration;
+        private int viewDistance;
+        private int simulationDistance;
+        private final Map<GameRule<?>, Object> gameRules;
+
+        private Builder()
+        {
+            this.keepSpawnInMemory = null;
+            this.autoSave = null;
+            this.voidGeneration = false;
+            this.viewDistance = -1;
+            this.simulationDistance = -1;
+            this.gameRules = new LinkedHashMap<>();
+        }
+
+        /**
+         * Stops spawn chunks from being kept loaded, disables saving and generates chunks outside the template empty. Suits games that only use the area saved in their template and are thrown away afterwards.
+         */
+        public Builder lightweight()
+        {
+            this.keepSpawnInMemory = false;
+            this.autoSave = false;
+            this.voidGeneration = true;
+            return this;
+        }
+
+        /**
+         * @param keepSpawnInMemory Whether the chunks around spawn should stay loaded
+         */
+        public Builder keepSpawnInMemory(boolean keepSpawnInMemory)
+        {
+            this.keepSpawnInMemory = keepSpawnInMemory;
+            return this;
+        }
+
+        /**
+         * @param autoSave Whether the world should be saved periodically
+         */
+        public Builder autoSave(boolean autoSave)
+        {
+            this.autoSave = autoSave;
+            return this;
+        }
+
+        /**
+         * @param voidGeneration Whether chunks outside the template should be generated empty
+         */
+        public Builder voidGeneration(boolean voidGeneration)
+        {
+            this.voidGeneration = voidGeneration;
+            return this;
+        }
+
+        /**
+         * @param viewDistance The distance in chunks sent to players or <code>-1</code> to use the server default
+         */
+        public Builder viewDistance(int viewDistance)
+        {
+            this.viewDistance = viewDistance;
+            return this;
+        }
+
+        /**
+         * @param simulationDistance The distance in chunks around players that is ticked or <code>-1</code> to use the server default
+         */
+        public Builder simulationDistance(int simulationDistance)
+        {
+            this.simulationDistance = simulationDistance;
+            return this;
+        }
+
+        /**
+         * Sets a game rule when the world is created.
+         *
+         * @param rule  The rule to set
+         * @param value The value to set it to
+         */
+        public <T> Builder gameRule(GameRule<T> rule, T value)
+        {
+            this.gameRules.put(rule, value);
+            return this;
+        }
+
+        /**
+         * @return A new profile with these settings
+         */
+        public WorldProfile build()
+        {
+            return new WorldProfile(this);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package io.github.ocelot.ludum.api.metrics;
+
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * <p>A count that only goes up. Safe to increment from any thread without contention.</p>
+ * <p>Counters of time should count seconds, use {@link #addNanos(long)} to add a duration measured with {@link System#nanoTime()}.</p>
+ *
+ * @author Ocelot
+ */
+public class Counter extends Metric
+{
+    private final DoubleAdder value;
+
+    Counter(String name, String help, String labels)
+    {
+        super(name, help, labels);
+        this.value = new DoubleAdder();
+    }
+
+    /**
+     * Adds one to this counter.
+     */
+    public void increment()
+    {
+        this.value.add(1);
+    }
+
+    /**
+     * Adds the specified amount to this counter.
+     *
+     * @param amount The amount to add, must not be negative
+     */
+    public void add(double amount)
+    {
+        if (!(amount >= 0))
+            throw new IllegalArgumentException("Counters cannot go down");
+        this.value.add(amount);
+    }
+
+    /**
+     * Adds the specified duration to this counter in seconds.
+     *
+     * @param nanos The duration in nanoseconds, must not be negative
+     */
+    public void addNanos(long nanos)
+    {
+        this.add(nanos / 1_000_000_000.0);
+    }
+
+    /**
+     * @return The current count
+     */
+    public double get()
+    {
+        return this.value.sum();
+    }
+}
@@ -0,0 +1,27 @@
+package io.github.ocelot.ludum.api.metrics;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * <p>A value that is read when metrics are collected. The supplier may be called from any thread.</p>
+ *
+ * @author Ocelot
+ */
+public class Gauge extends Metric
+{
+    private final DoubleSupplier value;
+
+    Gauge(String name, String help, String labels, DoubleSupplier value)
+    {
+        super(name, help, labels);
+        this.value = value;
+    }
+
+    /**
+     * @return The current value
+     */
+    public double get()
+    {
+        return this.value.getAsDouble();
+    }
+}
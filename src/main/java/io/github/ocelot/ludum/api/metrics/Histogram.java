@@ -0,0 +1,87 @@
+package io.github.ocelot.ludum.api.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>Counts observations into fixed buckets. Safe to observe from any thread without contention.</p>
+ * <p>Each bucket only counts the observations that fall into it, they are added up into cumulative buckets when read.</p>
+ *
+ * @author Ocelot
+ */
+public class Histogram extends Metric
+{
+    /**
+     * Bucket bounds in seconds suited to anything from a single tick to a slow world start.
+     */
+    public static final double[] DEFAULT_BUCKETS = {0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60};
+
+    private final double[] bounds;
+    private final LongAdder[] buckets;
+    private final DoubleAdder sum;
+
+    Histogram(String name, String help, String labels, double[] bounds)
+    {
+        super(name, help, labels);
+        this.bounds = bounds;
+        // The last bucket holds everything above the highest bound
+        this.buckets = new LongAdder[bounds.length + 1];
+        for (int i = 0; i < this.buckets.length; i++)
+            this.buckets[i] = new LongAdder();
+        this.sum = new DoubleAdder();
+    }
+
+    /**
+     * Records a single observation.
+     *
+     * @param value The value observed
+     */
+    public void observe(double value)
+    {
+        int bucket = Arrays.binarySearch(this.bounds, value);
+        this.buckets[bucket < 0 ? -bucket - 1 : bucket].increment();
+        this.sum.add(value);
+    }
+
+    /**
+     * Records a duration in seconds.
+     *
+     * @param nanos The time taken in nanoseconds
+     */
+    public void observeNanos(long nanos)
+    {
+        this.observe(nanos / 1_000_000_000.0);
+    }
+
+    /**
+     * @return The upper bound of each bucket, not including the final unbounded one
+     */
+    public double[] getBounds()
+    {
+        return this.bounds.clone();
+    }
+
+    /**
+     * @return The number of observations less than or equal to each bound, followed by the total number of observations
+     */
+    public long[] getCumulativeCounts()
+    {
+        long[] counts = new long[this.buckets.length];
+        long total = 0;
+        for (int i = 0; i < counts.length; i++)
+        {
+            total += this.buckets[i].sum();
+            counts[i] = total;
+        }
+        return counts;
+    }
+
+    /**
+     * @return The sum of every observation
+     */
+    public double getSum()
+    {
+        return this.sum.sum();
+    }
+}
@@ -0,0 +1,44 @@
+package io.github.ocelot.ludum.api.metrics;
+
+/**
+ * <p>A single named series of values with a fixed set of labels.</p>
+ *
+ * @author Ocelot
+ */
+public abstract class Metric
+{
+    private final String name;
+    private final String help;
+    private final String labels;
+
+    Metric(String name, String help, String labels)
+    {
+        this.name = name;
+        this.help = help;
+        this.labels = labels;
+    }
+
+    /**
+     * @return The name of this metric
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * @return A description of what this metric measures
+     */
+    public String getHelp()
+    {
+        return help;
+    }
+
+    /**
+     * @return The labels of this series in exposition form, for example <code>game="a",minigame="b"</code>, or an empty string if there are none
+     */
+    public String getLabels()
+    {
+        return labels;
+    }
+}
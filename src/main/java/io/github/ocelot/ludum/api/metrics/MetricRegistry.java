@@ -0,0 +1,212 @@
+package io.github.ocelot.ludum.api.metrics;
+
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleSupplier;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * <p>Holds every metric exported by Ludum and the minigames running in it.</p>
+ * <p>Labels are given as alternating names and values, for example <code>counter("kills_total", "Players killed", "team", "red")</code>. Registering a series that already exists returns the existing metric, so the same call can be made every time a value is needed.</p>
+ * <p>A scoped registry adds its own labels to everything registered through it and removes all of those series again when it is closed. Each running game gets one through {@link io.github.ocelot.ludum.api.Minigame#getMetrics()}.</p>
+ *
+ * @author Ocelot
+ */
+public class MetricRegistry
+{
+    private static final Pattern NAME = Pattern.compile("[a-zA-Z_:][a-zA-Z0-9_:]*");
+    private static final Pattern LABEL = Pattern.compile("[a-zA-Z_][a-zA-Z0-9_]*");
+
+    private final Map<String, Metric> series;
+    private final String[] labels;
+    private final Map<String, Metric> owned;
+    private volatile boolean closed;
+
+    public MetricRegistry()
+    {
+        this(new ConcurrentHashMap<>(), new String[0], null);
+    }
+
+    private MetricRegistry(Map<String, Metric> series, String[] labels, Map<String, Metric> owned)
+    {
+        this.series = series;
+        this.labels = labels;
+        this.owned = owned;
+    }
+
+    /**
+     * Retrieves or creates a counter.
+     *
+     * @param name   The name of the counter, should end with <code>_total</code>
+     * @param help   A description of what is counted
+     * @param labels Alternating label names and values
+     * @return The counter for that series
+     */
+    public Counter counter(String name, String help, String... labels)
+    {
+        return this.register(name, labels, Counter.class, text -> new Counter(name, help, text));
+    }
+
+    /**
+     * Retrieves or creates a gauge. If the series already exists, the existing gauge is returned and the new supplier is not used.
+     *
+     * @param name   The name of the gauge
+     * @param help   A description of what is measured
+     * @param value  Reads the current value, may be called from any thread
+     * @param labels Alternating label names and values
+     * @return The gauge for that series
+     */
+    public Gauge gauge(String name, String help, DoubleSupplier value, String... labels)
+    {
+        return this.register(name, labels, Gauge.class, text -> new Gauge(name, help, text, value));
+    }
+
+    /**
+     * Retrieves or creates a histogram with the {@link Histogram#DEFAULT_BUCKETS default buckets}.
+     *
+     * @param name   The name of the histogram
+     * @param help   A description of what is observed
+     * @param labels Alternating label names and values
+     * @return The histogram for that series
+     */
+    public Histogram histogram(String name, String help, String... labels)
+    {
+        return this.histogram(name, help, Histogram.DEFAULT_BUCKETS, labels);
+    }
+
+    /**
+     * Retrieves or creates a histogram.
+     *
+     * @param name    The name of the histogram
+     * @param help    A description of what is observed
+     * @param buckets The upper bound of each bucket in increasing order
+     * @param labels  Alternating label names and values
+     * @return The histogram for that series
+     */
+    public Histogram histogram(String name, String help, double[] buckets, String... labels)
+    {
+        for (int i = 0; i < buckets.length; i++)
+            if (!Double.isFinite(buckets[i]) || (i > 0 && buckets[i] <= buckets[i - 1]))
+                throw new IllegalArgumentException("Histogram buckets must be finite and increasing");
+        double[] bounds = buckets.clone();
+        return this.register(name, labels, Histogram.class, text -> new Histogram(name, help, text, bounds));
+    }
+
+    /**
+     * Creates a registry that adds the specified labels to everything registered through it.
+     *
+     * @param labels Alternating label names and values
+     * @return A new scoped registry that can be closed to remove its series
+     */
+    public MetricRegistry scoped(String... labels)
+    {
+        if (labels.length % 2 != 0)
+            throw new IllegalArgumentException("Labels must be given as name and value pairs");
+        String[] all = Arrays.copyOf(this.labels, this.labels.length + labels.length);
+        System.arraycopy(labels, 0, all, this.labels.length, labels.length);
+        return new MetricRegistry(this.series, all, new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Removes every series registered through this scoped registry. Metrics retrieved afterwards still work, but they are no longer exported.
+     */
+    public void close()
+    {
+        if (this.owned == null)
+            throw new UnsupportedOperationException("Only scoped registries can be closed");
+        this.closed = true;
+        // Another scope may have registered the same series since, for example a game that was reset
+        this.owned.forEach(this.series::remove);
+        this.owned.clear();
+    }
+
+    /**
+     * Stops exporting the specified metric.
+     *
+     * @param metric The metric to remove
+     */
+    public void remove(Metric metric)
+    {
+        String key = key(metric.getName(), metric.getLabels());
+        this.series.remove(key, metric);
+        if (this.owned != null)
+            this.owned.remove(key, metric);
+    }
+
+    /**
+     * @return Every series currently exported
+     */
+    @ApiStatus.Internal
+    public Collection<Metric> getMetrics()
+    {
+        return Collections.unmodifiableCollection(this.series.values());
+    }
+
+    private <T extends Metric> T register(String name, String[] labels, Class<T> type, Function<String, T> factory)
+    {
+        if (!NAME.matcher(name).matches())
+            throw new IllegalArgumentException("Invalid metric name: " + name);
+        String text = this.formatLabels(labels);
+        String key = key(name, text);
+        if (this.closed)
+            return factory.apply(text);
+
+        Metric metric = this.series.computeIfAbsent(key, __ -> factory.apply(text));
+        if (!type.isInstance(metric))
+            throw new IllegalArgumentException(name + " is already registered as a " + metric.getClass().getSimpleName().toLowerCase(Locale.ROOT));
+        if (this.owned != null)
+        {
+            this.owned.put(key, metric);
+            // Closing may have missed a series added at the same time
+            if (this.closed)
+                this.remove(metric);
+        }
+        return type.cast(metric);
+    }
+
+    private String formatLabels(String[] labels)
+    {
+        if (labels.length % 2 != 0)
+            throw new IllegalArgumentException("Labels must be given as name and value pairs");
+
+        // Sorted so the same labels always make the same series
+        Map<String, String> sorted = new TreeMap<>();
+        for (String[] pairs : new String[][]{this.labels, labels})
+        {
+            for (int i = 0; i < pairs.length; i += 2)
+            {
+                if (!LABEL.matcher(pairs[i]).matches() || pairs[i].startsWith("__") || "le".equals(pairs[i]))
+                    throw new IllegalArgumentException("Invalid label name: " + pairs[i]);
+                sorted.put(pairs[i], Objects.requireNonNull(pairs[i + 1], "value"));
+            }
+        }
+
+        StringBuilder builder = new StringBuilder();
+        sorted.forEach((label, value) ->
+        {
+            if (builder.length() > 0)
+                builder.append(',');
+            builder.append(label).append("=\"");
+            for (int i = 0; i < value.length(); i++)
+            {
+                char c = value.charAt(i);
+                if (c == '\\' || c == '"')
+                    builder.append('\\').append(c);
+                else if (c == '\n')
+                    builder.append("\\n");
+                else
+                    builder.append(c);
+            }
+            builder.append('"');
+        });
+        return builder.toString();
+    }
+
+    private static String key(String name, String labels)
+    {
+        return name + '{' + labels + '}';
+    }
+}
@@ -2,12 +2,29 @@ package io.github.ocelot.ludum.core;
 
 import com.destroystokyo.paper.event.server.ServerTickStartEvent;
 import io.github.ocelot.ludum.Ludum;
+import io.github.ocelot.ludum.api.MinigameManager;
+import io.github.ocelot.ludum.core.world.BlockJournal;
+import io.github.ocelot.ludum.core.world.ChunkTickets;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.block.BlockState;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.block.*;
+import org.bukkit.event.entity.EntityChangeBlockEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.world.StructureGrowEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
 import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
 
 @ApiStatus.Internal
 public class LudumEvents implements Listener
@@ -16,7 +33,7 @@ public class LudumEvents implements Listener
     public void onEvent(PlayerJoinEvent event)
     {
         Player player = event.getPlayer();
-        if (Ludum.getInstance().getMinigameManager().getRunningGame(player.getWorld().getUID()).isPresent())
+        if (Ludum.getInstance().getMinigameManager().getGameIn(player.getWorld()) != null)
         {
             player.teleport(Ludum.getInstance().getOverworld().getSpawnLocation());
         }
@@ -26,7 +43,17 @@ public class LudumEvents implements Listener
     public void onEvent(PlayerQuitEvent event)
     {
         Player player = event.getPlayer();
-        Ludum.getInstance().getMinigameManager().getRunningGame(player.getWorld().getUID()).ifPresent(game -> game.removePlayer(player));
+        MinigameManager.RunningGame game = Ludum.getInstance().getMinigameManager().getGameOf(player);
+        if (game != null)
+            game.removePlayer(player);
+        Ludum.getInstance().getMinigameManager().removePlayer(player);
+        Ludum.getInstance().getMinigameManager().getMatchmaker().dequeue(player);
+    }
+
+    @EventHandler
+    public void onEvent(PlayerChangedWorldEvent event)
+    {
+        Ludum.getInstance().getMinigameManager().updatePlayer(event.getPlayer());
     }
 
     @EventHandler
@@ -34,4 +61,188 @@ public class LudumEvents implements Listener
     {
         Ludum.getInstance().getMinigameManager().tick();
     }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEvent(WorldUnloadEvent event)
+    {
+        ChunkTickets.forget(event.getWorld());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEvent(BlockBreakEvent event)
+    {
+        record(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEvent(BlockPlaceEvent event)
+    {
+        // The block has already been placed, so the original comes from the replaced state
+        BlockJournal journal = getJournal(event.getBlock().getWorld());
+        if (journal == null)
+            return;
+        if (event instanceof BlockMultiPlaceEvent)
+            ((BlockMultiPlaceEvent) event).getReplacedBlockStates().forEach(journal::record);
+        else
+            journal.record(event.getBlockReplacedState());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEvent(BlockBurnEvent event)
+    {
+        record(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEvent(BlockIgniteEvent event)
+    {
+        record(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEvent(BlockFadeEvent event)
+    {
+        record(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEvent(BlockGrowEvent event)
+    {
+        record(event.getBlock());
+    }
+
+    // Forming and spreading have their own handler lists, so they are not seen by the grow handler
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEvent(BlockFormEvent event)
+    {
+        record(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEvent(BlockSpreadEvent event)
+    {
+        record(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEvent(EntityBlockFormEvent event)
+    {
+        record(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEvent(LeavesDecayEvent event)
+    {
+        record(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEvent(FluidLevelChangeEvent event)
+    {
+        record(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEvent(BlockFromToEvent event)
+    {
+        record(event.getToBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEvent(BlockExplodeEvent event)
+    {
+        record(event.getBlock());
+        recordAll(event.getBlock().getWorld(), event.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEvent(EntityExplodeEvent event)
+    {
+        recordAll(event.getEntity().getWorld(), event.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEvent(EntityChangeBlockEvent event)
+    {
+        record(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEvent(BlockPistonExtendEvent event)
+    {
+        recordPiston(event, event.getBlocks());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEvent(BlockPistonRetractEvent event)
+    {
+        recordPiston(event, event.getBlocks());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEvent(SpongeAbsorbEvent event)
+    {
+        recordStates(event.getBlock().getWorld(), event.getBlocks());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEvent(BlockFertilizeEvent event)
+    {
+        recordStates(event.getBlock().getWorld(), event.getBlocks());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEvent(StructureGrowEvent event)
+    {
+        recordStates(event.getWorld(), event.getBlocks());
+    }
+
+    @Nullable
+    private static BlockJournal getJournal(World world)
+    {
+        MinigameManager.RunningGame game = Ludum.getInstance().getMinigameManager().getGameIn(world);
+        return game != null ? game.getJournal() : null;
+    }
+
+    private static void record(Block block)
+    {
+        BlockJournal journal = getJournal(block.getWorld());
+        if (journal != null)
+            journal.record(block);
+    }
+
+    private static void recordAll(World world, List<Block> blocks)
+    {
+        BlockJournal journal = getJournal(world);
+        if (journal != null)
+            blocks.forEach(journal::record);
+    }
+
+    private static void recordStates(World world, List<BlockState> states)
+    {
+        BlockJournal journal = getJournal(world);
+        if (journal == null)
+            return;
+        // These states hold the new blocks, the originals are still in the world
+        for (BlockState state : states)
+            journal.record(state.getBlock());
+    }
+
+    private static void recordPiston(BlockPistonEvent event, List<Block> blocks)
+    {
+        BlockJournal journal = getJournal(event.getBlock().getWorld());
+        if (journal == null)
+            return;
+        // Both sides are recorded since the direction of retracting pistons is not consistent between versions
+        BlockFace direction = event.getDirection();
+        journal.record(event.getBlock());
+        journal.record(event.getBlock().getRelative(direction));
+        journal.record(event.getBlock().getRelative(direction.getOppositeFace()));
+        for (Block block : blocks)
+        {
+            journal.record(block);
+            journal.record(block.getRelative(direction));
+            journal.record(block.getRelative(direction.getOppositeFace()));
+        }
+    }
 }
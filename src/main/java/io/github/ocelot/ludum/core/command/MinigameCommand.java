@@ -4,6 +4,8 @@ import co.aikar.commands.BaseCommand;
 import co.aikar.commands.annotation.*;
 import io.github.ocelot.ludum.Ludum;
 import io.github.ocelot.ludum.api.MinigameManager;
+import io.github.ocelot.ludum.api.MinigameState;
+import io.github.ocelot.ludum.core.profile.RollingHistogram;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
 import org.bukkit.NamespacedKey;
@@ -11,18 +13,31 @@ import org.bukkit.command.CommandException;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.ApiStatus;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
 @ApiStatus.Internal
 @CommandPermission("minigame")
 @CommandAlias("minigame")
 public class MinigameCommand extends BaseCommand
 {
+    private static final Comparator<Map.Entry<String, RollingHistogram.Snapshot>> SLOWEST_FIRST = Comparator.comparingLong((Map.Entry<String, RollingHistogram.Snapshot> entry) -> entry.getValue().getP99()).reversed();
+
     @Subcommand("start")
     @Syntax("<game> <name>")
     @CommandCompletion("@games")
     @Description("Starts a new minigame in a server")
     public static void onStart(Player player, @Values("@games") NamespacedKey game, @Single String name)
     {
-        Ludum.getInstance().getMinigameManager().start(name, game).handleAsync((value, e) ->
+        MinigameManager manager = Ludum.getInstance().getMinigameManager();
+        CompletableFuture<MinigameManager.RunningGame> future = manager.start(name, game);
+        int position = manager.getQueuePosition(name);
+        if (position > 0)
+            player.sendMessage(Component.text("Queued " + name + " at position " + position));
+        future.handleAsync((value, e) ->
         {
             if (e != null)
             {
@@ -54,6 +69,46 @@ public class MinigameCommand extends BaseCommand
         }
     }
 
+    @Subcommand("cancel")
+    @Syntax("<name>")
+    @Description("Cancels a minigame server that is still waiting to start")
+    public static void onCancel(Player player, @Single String name)
+    {
+        if (Ludum.getInstance().getMinigameManager().cancel(name))
+            player.sendMessage(Component.text("Cancelled " + name));
+        else
+            player.sendMessage(Component.text("Not waiting to start: " + name).color(NamedTextColor.RED));
+    }
+
+    @Subcommand("reset")
+    @Syntax("<name>")
+    @CommandCompletion("@names")
+    @Description("Starts a new round of a running minigame in the same world")
+    public static void onReset(Player player, @Single @Values("@names") String name)
+    {
+        try
+        {
+            MinigameManager.RunningGame game = Ludum.getInstance().getMinigameManager().getRunningGame(name).filter(value -> value.getMinigame() != null).orElseThrow(() -> new CommandException("Unknown game server: " + name));
+            game.reset().handleAsync((value, e) ->
+            {
+                if (e != null)
+                {
+                    e.printStackTrace();
+                    player.sendMessage(Component.text(e.getMessage()).color(NamedTextColor.RED));
+                }
+                else
+                {
+                    player.sendMessage(Component.text("Reset " + name));
+                }
+                return value;
+            }, Ludum.getInstance().getMainExecutor());
+        }
+        catch (Exception e)
+        {
+            player.sendMessage(Component.text(e.getMessage()).color(NamedTextColor.RED));
+        }
+    }
+
     @Subcommand("join")
     @Syntax("<name> [target]")
     @CommandCompletion("@names")
@@ -80,8 +135,10 @@ public class MinigameCommand extends BaseCommand
         try
         {
             Player p = target != null ? target : player;
-            MinigameManager.RunningGame game = Ludum.getInstance().getMinigameManager().getRunningGame(p.getWorld().getUID()).orElseThrow(() -> new CommandException("Player is not in minigame"));
-            game.removePlayer(target != null ? target : player);
+            MinigameManager.RunningGame game = Ludum.getInstance().getMinigameManager().getGameOf(p);
+            if (game == null)
+                throw new CommandException("Player is not in minigame");
+            game.removePlayer(p);
         }
         catch (Exception e)
         {
@@ -89,6 +146,61 @@ public class MinigameCommand extends BaseCommand
         }
     }
 
+    @Subcommand("queue")
+    @Syntax("<game>")
+    @CommandCompletion("@games")
+    @Description("Waits for a match of a minigame")
+    public static void onQueue(Player player, @Values("@games") NamespacedKey game)
+    {
+        try
+        {
+            if (Ludum.getInstance().getMinigameManager().getGameOf(player) != null)
+                throw new CommandException("Leave your current minigame before queueing");
+            if (!Ludum.getInstance().getMinigameManager().getMatchmaker().queue(player, game))
+                throw new CommandException("Already queued for a minigame");
+            player.sendMessage(Component.text("Queued for " + game));
+        }
+        catch (Exception e)
+        {
+            player.sendMessage(Component.text(e.getMessage()).color(NamedTextColor.RED));
+        }
+    }
+
+    @Subcommand("unqueue")
+    @Description("Stops waiting for a match")
+    public static void onUnqueue(@Single Player player)
+    {
+        NamespacedKey game = Ludum.getInstance().getMinigameManager().getMatchmaker().dequeue(player);
+        if (game == null)
+        {
+            player.sendMessage(Component.text("Not queued for a minigame").color(NamedTextColor.RED));
+        }
+        else
+        {
+            player.sendMessage(Component.text("Left the queue for " + game));
+        }
+    }
+
+    @Subcommand("pack")
+    @Syntax("<template>")
+    @Description("Converts a world template folder or zip into a template pack")
+    public static void onPack(Player player, @Single String template)
+    {
+        player.sendMessage(Component.text("Converting " + template + "..."));
+        Ludum.getInstance().getMinigameManager().convertTemplate(template).whenCompleteAsync((pack, e) ->
+        {
+            if (e != null)
+            {
+                e.printStackTrace();
+                player.sendMessage(Component.text(e.getMessage()).color(NamedTextColor.RED));
+            }
+            else
+            {
+                player.sendMessage(Component.text("Created " + pack.getFileName()));
+            }
+        }, Ludum.getInstance().getMainExecutor());
+    }
+
     @Subcommand("list")
     @Description("Lists all running minigame servers")
     public static void onList(@Single Player player)
@@ -102,4 +214,119 @@ public class MinigameCommand extends BaseCommand
             player.sendMessage(Component.text("Current Servers: " + String.join(", ", Ludum.getInstance().getMinigameManager().getRunningGames())));
         }
     }
+
+    @Subcommand("stats")
+    @Syntax("[name]")
+    @CommandCompletion("@names")
+    @Description("Shows how long running minigames take to tick")
+    public static void onStats(Player player, @Optional @Single String name)
+    {
+        MinigameManager manager = Ludum.getInstance().getMinigameManager();
+        if (name != null)
+        {
+            MinigameManager.RunningGame game = manager.getRunningGame(name).filter(value -> value.getMinigame() != null).orElse(null);
+            if (game == null)
+            {
+                player.sendMessage(Component.text("Unknown game server: " + name).color(NamedTextColor.RED));
+                return;
+            }
+
+            Class<? extends MinigameState> stateType = game.getMinigame().getState().getClass();
+            player.sendMessage(Component.text(name + " (p50/p99/max)").color(NamedTextColor.GOLD));
+            for (RollingHistogram.Window window : RollingHistogram.Window.values())
+                player.sendMessage(Component.text(" " + window.getDisplayName() + ": " + format(game.getTickTimes().snapshot(window))));
+            player.sendMessage(Component.text(" Skipped " + game.getSkippedTicks() + " ticks, deferred " + game.getDeferredTicks() + " ticks"));
+            player.sendMessage(Component.text("State " + stateType.getSimpleName()).color(NamedTextColor.GOLD));
+            for (RollingHistogram.Window window : RollingHistogram.Window.values())
+                player.sendMessage(Component.text(" " + window.getDisplayName() + ": " + format(manager.getProfiler().getStateTimes(stateType).snapshot(window))));
+            return;
+        }
+
+        List<MinigameManager.RunningGame> games = new ArrayList<>();
+        for (String server : manager.getRunningGames())
+            manager.getRunningGame(server).filter(game -> game.getMinigame() != null).ifPresent(games::add);
+        if (games.isEmpty())
+        {
+            player.sendMessage(Component.text("No Servers Running"));
+        }
+        else
+        {
+            player.sendMessage(Component.text("Game tick times over 1m (p50/p99/max)").color(NamedTextColor.GOLD));
+            List<Map.Entry<String, RollingHistogram.Snapshot>> snapshots = new ArrayList<>();
+            for (MinigameManager.RunningGame game : games)
+                snapshots.add(Map.entry(game.getName(), game.getTickTimes().snapshot(RollingHistogram.Window.MINUTE)));
+            snapshots.sort(SLOWEST_FIRST);
+            for (Map.Entry<String, RollingHistogram.Snapshot> entry : snapshots)
+                player.sendMessage(Component.text(" " + entry.getKey() + ": " + format(entry.getValue())));
+        }
+
+        Map<Class<? extends MinigameState>, RollingHistogram> states = manager.getProfiler().getStateTimes();
+        if (!states.isEmpty())
+        {
+            player.sendMessage(Component.text("State tick times over 1m (p50/p99/max)").color(NamedTextColor.GOLD));
+            List<Map.Entry<String, RollingHistogram.Snapshot>> snapshots = new ArrayList<>();
+            states.forEach((state, times) ->
+            {
+                RollingHistogram.Snapshot snapshot = times.snapshot(RollingHistogram.Window.MINUTE);
+                if (snapshot.getCount() > 0)
+                    snapshots.add(Map.entry(state.getSimpleName(), snapshot));
+            });
+            snapshots.sort(SLOWEST_FIRST);
+            for (Map.Entry<String, RollingHistogram.Snapshot> entry : snapshots)
+                player.sendMessage(Component.text(" " + entry.getKey() + ": " + format(entry.getValue())));
+        }
+
+        Map<String, RollingHistogram> readyTimes = manager.getProfiler().getReadyTimes();
+        if (!readyTimes.isEmpty())
+        {
+            player.sendMessage(Component.text("Time to ready over 5m (p50/p99/max)").color(NamedTextColor.GOLD));
+            readyTimes.forEach((template, times) ->
+            {
+                RollingHistogram.Snapshot snapshot = times.snapshot(RollingHistogram.Window.FIVE_MINUTES);
+                if (snapshot.getCount() > 0)
+                    player.sendMessage(Component.text(" " + template + ": " + format(snapshot, "starts")));
+            });
+        }
+
+        Map<String, RollingHistogram> resetTimes = manager.getProfiler().getResetTimes();
+        if (!resetTimes.isEmpty())
+        {
+            player.sendMessage(Component.text("Time to reset over 5m (p50/p99/max)").color(NamedTextColor.GOLD));
+            resetTimes.forEach((template, times) ->
+            {
+                RollingHistogram.Snapshot snapshot = times.snapshot(RollingHistogram.Window.FIVE_MINUTES);
+                if (snapshot.getCount() > 0)
+                    player.sendMessage(Component.text(" " + template + ": " + format(snapshot, "resets")));
+            });
+        }
+
+        Map<NamespacedKey, Integer> queues = manager.getMatchmaker().getQueueDepths();
+        if (!queues.isEmpty())
+        {
+            player.sendMessage(Component.text("Queue wait times over 5m (p50/p99/max)").color(NamedTextColor.GOLD));
+            queues.forEach((key, depth) ->
+            {
+                RollingHistogram waitTimes = manager.getMatchmaker().getWaitTimes(key);
+                player.sendMessage(Component.text(" " + key + ": " + depth + " waiting, " + (waitTimes != null ? format(waitTimes.snapshot(RollingHistogram.Window.FIVE_MINUTES), "matched") : "none matched")));
+            });
+        }
+
+        RollingHistogram.Snapshot waves = manager.getAdmission().getWaveTimes().snapshot(RollingHistogram.Window.FIVE_MINUTES);
+        if (waves.getCount() > 0)
+        {
+            player.sendMessage(Component.text("Admission times over 5m (p50/p99/max)").color(NamedTextColor.GOLD));
+            player.sendMessage(Component.text(" Preload: " + format(manager.getAdmission().getPreloadTimes().snapshot(RollingHistogram.Window.FIVE_MINUTES), "batches")));
+            player.sendMessage(Component.text(" Waves: " + format(waves, "waves")));
+        }
+    }
+
+    private static String format(RollingHistogram.Snapshot snapshot)
+    {
+        return format(snapshot, "ticks");
+    }
+
+    private static String format(RollingHistogram.Snapshot snapshot, String unit)
+    {
+        return String.format("%.2f/%.2f/%.2fms (%d %s)", snapshot.getP50() / 1_000_000.0, snapshot.getP99() / 1_000_000.0, snapshot.getMax() / 1_000_000.0, snapshot.getCount(), unit);
+    }
 }
@@ -0,0 +1,136 @@
+package io.github.ocelot.ludum.core.concurrent;
+
+import io.github.ocelot.ludum.api.metrics.Counter;
+import io.github.ocelot.ludum.api.metrics.Histogram;
+import io.github.ocelot.ludum.api.metrics.MetricRegistry;
+import org.bukkit.Bukkit;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+/**
+ * <p>A fixed number of named worker threads behind a queue of limited size.</p>
+ * <p>Tasks submitted while the queue is full are rejected with a {@link RejectedExecutionException} instead of piling up, and {@link #isSaturated()} tells callers to hold back new work before that happens. Time spent waiting in the queue, time spent running and rejections are exported as metrics labelled with the pool name.</p>
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public class BoundedExecutor extends ThreadPoolExecutor
+{
+    private static final double[] QUEUE_BUCKETS = {0.0001, 0.0005, 0.001, 0.005, 0.01, 0.05, 0.1, 0.5, 1, 5, 10, 30};
+
+    private final String name;
+    private final int saturation;
+    private final Histogram queueTimes;
+    private final Counter busyTime;
+    private final Counter rejected;
+
+    /**
+     * Creates a new pool and starts all of its threads.
+     *
+     * @param name       The name of the pool, used for thread names and metric labels
+     * @param threads    The number of worker threads
+     * @param queueSize  The most tasks that can wait for a thread
+     * @param saturation The fraction of the queue that can fill before the pool reports itself as saturated
+     * @param metrics    The registry to export pool metrics to
+     */
+    public BoundedExecutor(String name, int threads, int queueSize, double saturation, MetricRegistry metrics)
+    {
+        super(threads, threads, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(Math.max(1, queueSize)), createThreadFactory(name), new AbortPolicy());
+        this.name = name;
+        this.saturation = Math.max(1, (int) Math.ceil(Math.max(1, queueSize) * Math.min(Math.max(saturation, 0), 1)));
+        this.queueTimes = metrics.histogram("ludum_executor_queue_seconds", "Time tasks waited for a thread", QUEUE_BUCKETS, "pool", name);
+        this.busyTime = metrics.counter("ludum_executor_busy_seconds_total", "Seconds threads spent running tasks", "pool", name);
+        this.rejected = metrics.counter("ludum_executor_rejected_total", "Tasks turned away because the queue was full", "pool", name);
+        metrics.gauge("ludum_executor_threads", "Worker threads in the pool", this::getPoolSize, "pool", name);
+        metrics.gauge("ludum_executor_active_threads", "Worker threads currently running a task", this::getActiveCount, "pool", name);
+        metrics.gauge("ludum_executor_queue_size", "Tasks waiting for a thread", () -> this.getQueue().size(), "pool", name);
+        this.prestartAllCoreThreads();
+    }
+
+    private static ThreadFactory createThreadFactory(String name)
+    {
+        AtomicInteger count = new AtomicInteger(1);
+        return task ->
+        {
+            Thread thread = new Thread(task, "Ludum-" + name + "-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            thread.setUncaughtExceptionHandler((t, e) ->
+            {
+                if (e instanceof CompletionException)
+                    e = e.getCause();
+                Bukkit.getLogger().log(Level.SEVERE, t.getName() + " died", e);
+            });
+            return thread;
+        };
+    }
+
+    @Override
+    public void execute(Runnable command)
+    {
+        try
+        {
+            super.execute(new QueuedTask(command));
+        }
+        catch (RejectedExecutionException e)
+        {
+            this.rejected.increment();
+            throw e;
+        }
+    }
+
+    @Override
+    protected void beforeExecute(Thread t, Runnable r)
+    {
+        if (r instanceof QueuedTask)
+        {
+            QueuedTask task = (QueuedTask) r;
+            task.started = System.nanoTime();
+            this.queueTimes.observeNanos(task.started - task.queued);
+        }
+    }
+
+    @Override
+    protected void afterExecute(Runnable r, Throwable t)
+    {
+        if (r instanceof QueuedTask)
+            this.busyTime.addNanos(System.nanoTime() - ((QueuedTask) r).started);
+    }
+
+    /**
+     * @return Whether the queue is full enough that new work should wait instead of being submitted
+     */
+    public boolean isSaturated()
+    {
+        return this.getQueue().size() >= this.saturation;
+    }
+
+    /**
+     * @return The name of this pool
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    private static class QueuedTask implements Runnable
+    {
+        private final Runnable task;
+        private final long queued;
+        private long started;
+
+        private QueuedTask(Runnable task)
+        {
+            this.task = task;
+            this.queued = System.nanoTime();
+        }
+
+        @Override
+        public void run()
+        {
+            this.task.run();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package io.github.ocelot.ludum.core.concurrent;
+
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>Hands out the lowest free integer ids without locking.</p>
+ * <p>Ids are tracked in an atomic bitmap, and a hint to the first word that may have a free bit keeps acquiring close to constant time.</p>
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public class IdAllocator
+{
+    private final AtomicLongArray words;
+    private final AtomicInteger hint;
+
+    public IdAllocator(int capacity)
+    {
+        this.words = new AtomicLongArray((capacity + 63) >>> 6);
+        this.hint = new AtomicInteger();
+    }
+
+    /**
+     * Reserves the lowest free id.
+     *
+     * @return The reserved id
+     * @throws IllegalStateException If every id is in use
+     */
+    public int acquire()
+    {
+        int id = this.acquire(this.hint.get());
+        if (id == -1)
+        {
+            // The hint can briefly skip past a word that was released concurrently
+            id = this.acquire(0);
+        }
+        if (id == -1)
+            throw new IllegalStateException("No free ids left out of " + this.capacity());
+        return id;
+    }
+
+    private int acquire(int start)
+    {
+        int length = this.words.length();
+        for (int i = start; i < length; i++)
+        {
+            long word;
+            while ((word = this.words.get(i)) != -1L)
+            {
+                int bit = Long.numberOfTrailingZeros(~word);
+                if (this.words.compareAndSet(i, word, word | (1L << bit)))
+                    return (i << 6) | bit;
+            }
+            this.hint.compareAndSet(i, i + 1);
+        }
+        return -1;
+    }
+
+    /**
+     * Frees the specified id so it can be acquired again.
+     *
+     * @param id The id to free
+     */
+    public void release(int id)
+    {
+        int index = id >>> 6;
+        long mask = 1L << (id & 63);
+        long word;
+        do
+        {
+            word = this.words.get(index);
+        }
+        while (!this.words.compareAndSet(index, word, word & ~mask));
+
+        int hint;
+        while ((hint = this.hint.get()) > index && !this.hint.compareAndSet(hint, index))
+        {
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Checks whether the specified id is currently reserved.
+     *
+     * @param id The id to check
+     * @return Whether that id is in use
+     */
+    public boolean isUsed(int id)
+    {
+        return (this.words.get(id >>> 6) & (1L << (id & 63))) != 0;
+    }
+
+    /**
+     * Frees every id.
+     */
+    public void clear()
+    {
+        for (int i = 0; i < this.words.length(); i++)
+            this.words.set(i, 0);
+        this.hint.set(0);
+    }
+
+    /**
+     * @return The maximum number of ids that can be in use at once
+     */
+    public int capacity()
+    {
+        return this.words.length() << 6;
+    }
+}
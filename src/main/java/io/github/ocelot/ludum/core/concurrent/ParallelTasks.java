@@ -0,0 +1,119 @@
+package io.github.ocelot.ludum.core.concurrent;
+
+import org.jetbrains.annotations.ApiStatus;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <p>Runs blocking work over a collection of items on several threads at once.</p>
+ * <p>The calling thread always takes part in the work, so it finishes even when the executor is busy or is the same executor the caller is running on.</p>
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public final class ParallelTasks
+{
+    private ParallelTasks()
+    {
+    }
+
+    /**
+     * Runs the specified action for every item and waits for all of them to finish.
+     *
+     * @param executor    The executor to run helper tasks on
+     * @param parallelism The maximum number of threads to use, including the calling thread
+     * @param items       The items to process
+     * @param action      The action to run for each item
+     * @param <T>         The type of item to process
+     * @throws IOException If any action fails. Remaining items are skipped after the first failure
+     */
+    public static <T> void forEach(Executor executor, int parallelism, Collection<T> items, IOConsumer<T> action) throws IOException
+    {
+        if (items.isEmpty())
+            return;
+
+        Queue<T> queue = new ConcurrentLinkedQueue<>(items);
+        AtomicInteger remaining = new AtomicInteger(items.size());
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+        Runnable worker = () ->
+        {
+            T item;
+            while ((item = queue.poll()) != null)
+            {
+                try
+                {
+                    if (failure.get() == null)
+                        action.accept(item);
+                }
+                catch (Throwable t)
+                {
+                    failure.compareAndSet(null, t);
+                }
+                finally
+                {
+                    if (remaining.decrementAndGet() == 0)
+                        done.countDown();
+                }
+            }
+        };
+
+        int helpers = Math.min(parallelism, items.size()) - 1;
+        for (int i = 0; i < helpers; i++)
+        {
+            try
+            {
+                executor.execute(worker);
+            }
+            catch (RejectedExecutionException e)
+            {
+                break;
+            }
+        }
+        worker.run();
+
+        try
+        {
+            done.await();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for parallel tasks");
+        }
+
+        Throwable t = failure.get();
+        if (t instanceof IOException)
+            throw (IOException) t;
+        if (t instanceof UncheckedIOException)
+            throw ((UncheckedIOException) t).getCause();
+        if (t instanceof RuntimeException)
+            throw (RuntimeException) t;
+        if (t instanceof Error)
+            throw (Error) t;
+        if (t != null)
+            throw new IOException(t);
+    }
+
+    /**
+     * <p>An action that may throw an {@link IOException}.</p>
+     *
+     * @param <T> The type of item accepted
+     * @author Ocelot
+     */
+    @FunctionalInterface
+    public interface IOConsumer<T>
+    {
+        void accept(T item) throws IOException;
+    }
+}
@@ -0,0 +1,252 @@
+package io.github.ocelot.ludum.core.event;
+
+import io.github.ocelot.ludum.api.GameEventHandler;
+import io.github.ocelot.ludum.api.Minigame;
+import io.github.ocelot.ludum.api.MinigameManager;
+import io.github.ocelot.ludum.api.MinigameState;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.event.*;
+import org.bukkit.event.block.BlockEvent;
+import org.bukkit.event.entity.EntityEvent;
+import org.bukkit.event.hanging.HangingEvent;
+import org.bukkit.event.inventory.InventoryEvent;
+import org.bukkit.event.player.PlayerEvent;
+import org.bukkit.event.vehicle.VehicleEvent;
+import org.bukkit.event.world.WorldEvent;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.logging.Level;
+
+/**
+ * <p>Routes Bukkit events to the {@link GameEventHandler} methods of the minigame they happened in.</p>
+ * <p>A single Bukkit listener is registered for each event type and priority any handler uses. When an event fires, the world it happened in is used to look up the running game, and only that game's minigame and current state are called. Handler methods are found once per class and called through method handles, so dispatching is an array lookup and a direct call.</p>
+ * <p>Events fired off the main thread, such as chat, are dispatched on the thread that fired them. The slot table is concurrent and new slots are registered under a lock, so a class first seen by such an event is compiled safely.</p>
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public class GameEventBus implements Listener
+{
+    private static final MethodType HANDLER_TYPE = MethodType.methodType(void.class, Object.class, Event.class);
+
+    private final Plugin plugin;
+    private final MinigameManager manager;
+    private final Map<Registration, Integer> slots;
+    private final ClassValue<Handler[][]> handlers;
+
+    public GameEventBus(Plugin plugin, MinigameManager manager)
+    {
+        this.plugin = plugin;
+        this.manager = manager;
+        this.slots = new ConcurrentHashMap<>();
+        this.handlers = new ClassValue<>()
+        {
+            @Override
+            protected Handler[][] computeValue(Class<?> type)
+            {
+                return GameEventBus.this.compile(type);
+            }
+        };
+    }
+
+    /**
+     * Finds the handlers of the specified minigame or state class and registers listeners for any events not listened to yet. Must be called on the main thread before instances of that class can receive events.
+     *
+     * @param type The class of the minigame or state
+     * @throws IllegalArgumentException If any handler is not valid
+     */
+    public void prepare(Class<?> type)
+    {
+        this.handlers.get(type);
+    }
+
+    /**
+     * Stops listening to all events.
+     */
+    public void close()
+    {
+        HandlerList.unregisterAll(this);
+    }
+
+    private Handler[][] compile(Class<?> type)
+    {
+        Map<Integer, List<Handler>> bySlot = new HashMap<>();
+        Set<String> seen = new HashSet<>();
+        for (Class<?> c = type; c != null && c != Minigame.class && c != MinigameState.class && c != Object.class; c = c.getSuperclass())
+        {
+            for (Method method : c.getDeclaredMethods())
+            {
+                GameEventHandler annotation = method.getAnnotation(GameEventHandler.class);
+                if (annotation == null)
+                    continue;
+                if (Modifier.isStatic(method.getModifiers()) || method.getParameterCount() != 1 || !Event.class.isAssignableFrom(method.getParameterTypes()[0]))
+                    throw new IllegalArgumentException(c.getName() + "." + method.getName() + " must be an instance method with a single event parameter");
+
+                // Overridden handlers are only called once, through the most specific override
+                Class<? extends Event> eventType = method.getParameterTypes()[0].asSubclass(Event.class);
+                if (!seen.add(method.getName() + ":" + eventType.getName()))
+                    continue;
+
+                String name = c.getName() + "." + method.getName();
+                int slot;
+                try
+                {
+                    slot = this.getSlot(eventType, annotation.priority());
+                }
+                catch (RuntimeException e)
+                {
+                    throw new IllegalArgumentException("Event handler " + name + " cannot listen to " + eventType.getName(), e);
+                }
+
+                try
+                {
+                    method.setAccessible(true);
+                    MethodHandle handle = MethodHandles.lookup().unreflect(method).asType(HANDLER_TYPE);
+                    bySlot.computeIfAbsent(slot, __ -> new ArrayList<>()).add(new Handler(handle, annotation.ignoreCancelled(), name));
+                }
+                catch (ReflectiveOperationException | RuntimeException e)
+                {
+                    throw new IllegalArgumentException("Failed to access event handler " + name, e);
+                }
+            }
+        }
+
+        Handler[][] table = new Handler[bySlot.keySet().stream().mapToInt(Integer::intValue).max().orElse(-1) + 1][];
+        bySlot.forEach((slot, list) -> table[slot] = list.toArray(Handler[]::new));
+        return table;
+    }
+
+    private synchronized int getSlot(Class<? extends Event> eventType, EventPriority priority)
+    {
+        Registration registration = new Registration(eventType, priority);
+        Integer slot = this.slots.get(registration);
+        if (slot != null)
+            return slot;
+
+        Function<Event, World> world = getWorldResolver(eventType);
+        int id = this.slots.size();
+        Bukkit.getPluginManager().registerEvent(eventType, this, priority, (listener, event) ->
+        {
+            // Events without their own handler list are delivered to listeners of the parent event as well
+            if (eventType.isInstance(event))
+                this.dispatch(id, world.apply(event), event);
+        }, this.plugin, false);
+        this.slots.put(registration, id);
+        return id;
+    }
+
+    private void dispatch(int slot, @Nullable World world, Event event)
+    {
+        MinigameManager.RunningGame game = world != null ? this.manager.getGameIn(world) : null;
+        if (game == null || game.getMinigame() == null)
+            return;
+
+        Minigame minigame = game.getMinigame();
+        this.dispatch(slot, minigame, event);
+        this.dispatch(slot, minigame.getState(), event);
+    }
+
+    private void dispatch(int slot, Object receiver, Event event)
+    {
+        Handler[][] table;
+        try
+        {
+            table = this.handlers.get(receiver.getClass());
+        }
+        catch (RuntimeException e)
+        {
+            // Only reached for classes that were never prepared, since preparing would have failed first
+            Bukkit.getLogger().log(Level.SEVERE, "Could not pass " + event.getEventName() + " to " + receiver.getClass().getName(), e);
+            return;
+        }
+        if (slot >= table.length || table[slot] == null)
+            return;
+
+        for (Handler handler : table[slot])
+        {
+            if (handler.ignoreCancelled && event instanceof Cancellable && ((Cancellable) event).isCancelled())
+                continue;
+            try
+            {
+                handler.handle.invokeExact(receiver, event);
+            }
+            catch (Throwable t)
+            {
+                Bukkit.getLogger().log(Level.SEVERE, "Could not pass " + event.getEventName() + " to " + handler.name, t);
+            }
+        }
+    }
+
+    private static Function<Event, World> getWorldResolver(Class<? extends Event> type)
+    {
+        if (PlayerEvent.class.isAssignableFrom(type))
+            return event -> ((PlayerEvent) event).getPlayer().getWorld();
+        if (BlockEvent.class.isAssignableFrom(type))
+            return event -> ((BlockEvent) event).getBlock().getWorld();
+        if (EntityEvent.class.isAssignableFrom(type))
+            return event -> ((EntityEvent) event).getEntity().getWorld();
+        if (WorldEvent.class.isAssignableFrom(type))
+            return event -> ((WorldEvent) event).getWorld();
+        if (InventoryEvent.class.isAssignableFrom(type))
+            return event -> ((InventoryEvent) event).getView().getPlayer().getWorld();
+        if (VehicleEvent.class.isAssignableFrom(type))
+            return event -> ((VehicleEvent) event).getVehicle().getWorld();
+        if (HangingEvent.class.isAssignableFrom(type))
+            return event -> ((HangingEvent) event).getEntity().getWorld();
+        throw new IllegalArgumentException(type.getName() + " does not happen in a world, so it cannot be handled by a minigame");
+    }
+
+    private static class Registration
+    {
+        private final Class<? extends Event> eventType;
+        private final EventPriority priority;
+
+        private Registration(Class<? extends Event> eventType, EventPriority priority)
+        {
+            this.eventType = eventType;
+            this.priority = priority;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+                return true;
+            if (!(o instanceof Registration))
+                return false;
+            Registration that = (Registration) o;
+            return this.eventType == that.eventType && this.priority == that.priority;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return 31 * this.eventType.hashCode() + this.priority.hashCode();
+        }
+    }
+
+    private static class Handler
+    {
+        private final MethodHandle handle;
+        private final boolean ignoreCancelled;
+        private final String name;
+
+        private Handler(MethodHandle handle, boolean ignoreCancelled, String name)
+        {
+            this.handle = handle;
+            this.ignoreCancelled = ignoreCancelled;
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package io.github.ocelot.ludum.core.match;
+
+import io.github.ocelot.ludum.api.MinigameManager;
+import io.github.ocelot.ludum.api.MinigameRegistry;
+import org.bukkit.Bukkit;
+import org.bukkit.NamespacedKey;
+import org.bukkit.configuration.ConfigurationSection;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>Keeps enough open matchmade games running for each minigame to meet demand.</p>
+ * <p>Queue depth, running games and how full they are are sampled into a sliding window. Open games are started as soon as the window calls for more, but only retired after the window has asked for fewer for a while, so short dips do not tear games down.</p>
+ * <p>Only games started by matchmaking are sampled. Games started by hand still count towards the limit on running games, but never cause more open games to be started or hold off retiring them.</p>
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public class Autoscaler
+{
+    private static final long BYTES_PER_MEGABYTE = 1024L * 1024L;
+
+    private final MinigameManager manager;
+    private final Matchmaker matchmaker;
+    private final Map<NamespacedKey, Demand> demand;
+    private final boolean enabled;
+    private final int interval;
+    private final int window;
+    private final int minSpare;
+    private final int maxSpare;
+    private final double scaleUpFill;
+    private final int hysteresis;
+    private final int retireAfter;
+    private final int maxGames;
+    private final long minFreeMemory;
+    private int ticks;
+    private boolean memoryWarned;
+
+    public Autoscaler(MinigameManager manager, Matchmaker matchmaker, ConfigurationSection config)
+    {
+        this.manager = manager;
+        this.matchmaker = matchmaker;
+        this.demand = new HashMap<>();
+        this.enabled = config.getBoolean("enabled", true);
+        this.interval = Math.max(1, config.getInt("interval", 20));
+        this.window = Math.max(1, config.getInt("window", 30));
+        this.minSpare = Math.max(0, config.getInt("min-spare", 0));
+        this.maxSpare = Math.max(this.minSpare, config.getInt("max-spare", 4));
+        this.scaleUpFill = config.getDouble("scale-up-fill", 0.75);
+        this.hysteresis = Math.max(0, config.getInt("hysteresis", 1));
+        this.retireAfter = Math.max(1, config.getInt("retire-after", 15));
+        this.maxGames = Math.max(1, config.getInt("max-games", 64));
+        this.minFreeMemory = Math.max(0, config.getLong("min-free-memory-mb", 512)) * BYTES_PER_MEGABYTE;
+    }
+
+    /**
+     * Samples demand for every registered minigame and starts or retires open games to match it.
+     */
+    public void tick()
+    {
+        if (!this.enabled || ++this.ticks < this.interval)
+            return;
+        this.ticks = 0;
+
+        int games = this.manager.getRunningGames().size();
+        for (NamespacedKey key : MinigameRegistry.getKeys())
+        {
+            Demand demand = this.demand.computeIfAbsent(key, __ -> new Demand(this.window));
+            int maxPlayers = this.matchmaker.getMaxPlayers(key);
+            List<MinigameManager.RunningGame> owned = this.matchmaker.getOwnedGames(key);
+            int players = 0;
+            for (MinigameManager.RunningGame game : owned)
+                players += game.getMinigame().getWorld().getPlayers().size();
+            demand.sample(this.matchmaker.getQueueDepth(key), owned.size(), !owned.isEmpty() ? players / (double) (owned.size() * maxPlayers) : 0);
+
+            int target = this.getTargetSpare(demand, maxPlayers);
+            int spare = this.matchmaker.getOpenInstances(key);
+            if (spare < target)
+            {
+                demand.retireStreak = 0;
+                for (int i = spare; i < target && games < this.maxGames && this.hasMemoryHeadroom(); i++, games++)
+                    this.matchmaker.openInstance(key);
+            }
+            else if (spare > target + this.hysteresis)
+            {
+                // Only retire once demand has stayed low for the whole delay
+                if (++demand.retireStreak >= this.retireAfter && this.matchmaker.retireInstance(key))
+                    demand.retireStreak = 0;
+            }
+            else
+            {
+                demand.retireStreak = 0;
+            }
+        }
+    }
+
+    private int getTargetSpare(Demand demand, int maxPlayers)
+    {
+        int target = this.minSpare + (int) Math.ceil(demand.getAverageWaiting() / maxPlayers);
+        if (demand.running > 0 && demand.getAverageFill() >= this.scaleUpFill)
+            target++;
+        return Math.min(target, this.maxSpare);
+    }
+
+    private boolean hasMemoryHeadroom()
+    {
+        Runtime runtime = Runtime.getRuntime();
+        long free = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+        if (free >= this.minFreeMemory)
+        {
+            this.memoryWarned = false;
+            return true;
+        }
+        if (!this.memoryWarned)
+        {
+            this.memoryWarned = true;
+            Bukkit.getLogger().warning("Not starting more minigames, only " + free / BYTES_PER_MEGABYTE + "MB of memory is free");
+        }
+        return false;
+    }
+
+    /**
+     * <p>A sliding window of demand samples for a single minigame.</p>
+     *
+     * @author Ocelot
+     */
+    private static class Demand
+    {
+        private final int[] waiting;
+        private final double[] fill;
+        private int index;
+        private int count;
+        private int running;
+        private int retireStreak;
+
+        private Demand(int window)
+        {
+            this.waiting = new int[window];
+            this.fill = new double[window];
+        }
+
+        private void sample(int waiting, int running, double fill)
+        {
+            this.waiting[this.index] = waiting;
+            this.fill[this.index] = fill;
+            this.index = (this.index + 1) % this.waiting.length;
+            this.count = Math.min(this.count + 1, this.waiting.length);
+            this.running = running;
+        }
+
+        private double getAverageWaiting()
+        {
+            long total = 0;
+            for (int i = 0; i < this.count; i++)
+                total += this.waiting[i];
+            return this.count > 0 ? total / (double) this.count : 0;
+        }
+
+        private double getAverageFill()
+        {
+            double total = 0;
+            for (int i = 0; i < this.count; i++)
+                total += this.fill[i];
+            return this.count > 0 ? total / this.count : 0;
+        }
+    }
+}
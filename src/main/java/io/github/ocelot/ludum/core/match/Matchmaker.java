@@ -0,0 +1,485 @@
+package io.github.ocelot.ludum.core.match;
+
+import io.github.ocelot.ludum.Ludum;
+import io.github.ocelot.ludum.api.MinigameManager;
+import io.github.ocelot.ludum.api.MinigameRegistry;
+import io.github.ocelot.ludum.api.StartPriority;
+import io.github.ocelot.ludum.core.profile.RollingHistogram;
+import org.bukkit.Bukkit;
+import org.bukkit.NamespacedKey;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * <p>Groups players waiting for a minigame into matches and starts games for them.</p>
+ * <p>Queueing and leaving only touch concurrent collections, so they can be called from any thread without blocking. Queues are opened, matches are formed, games are started and players are admitted only on the main thread.</p>
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public class Matchmaker
+{
+    private static final int WAITING = 0;
+    private static final int MATCHED = 1;
+    private static final int CANCELLED = 2;
+
+    private final MinigameManager manager;
+    private final Map<NamespacedKey, MatchQueue> queues;
+    private final Map<UUID, Ticket> tickets;
+    private final int defaultMinPlayers;
+    private final int defaultMaxPlayers;
+    private final int interval;
+    private int ticks;
+
+    public Matchmaker(MinigameManager manager, ConfigurationSection config)
+    {
+        this.manager = manager;
+        this.queues = new ConcurrentHashMap<>();
+        this.tickets = new ConcurrentHashMap<>();
+        this.defaultMinPlayers = Math.max(1, config.getInt("min-players", 2));
+        this.defaultMaxPlayers = Math.max(this.defaultMinPlayers, config.getInt("max-players", 16));
+        this.interval = Math.max(1, config.getInt("interval", 20));
+    }
+
+    /**
+     * Adds the specified player to the queue for a minigame. Safe to call from any thread.
+     *
+     * @param player The player to queue
+     * @param key    The minigame to queue for
+     * @return Whether the player was queued. Players can only be in one queue at a time
+     * @throws IllegalStateException If there is no minigame with that id, or it was only just registered and its queue has not been opened on the main thread yet
+     */
+    public boolean queue(Player player, NamespacedKey key)
+    {
+        if (!MinigameRegistry.isRegistered(key))
+            throw new IllegalStateException("Unknown minigame: " + key);
+
+        MatchQueue queue = this.getQueue(key);
+        Ticket ticket = new Ticket(queue, player, System.nanoTime());
+        if (this.tickets.putIfAbsent(player.getUniqueId(), ticket) != null)
+            return false;
+        queue.size.incrementAndGet();
+        queue.waiting.offer(ticket);
+        return true;
+    }
+
+    /**
+     * Removes the specified player from any queue they are in. Safe to call from any thread.
+     *
+     * @param player The player to remove
+     * @return The minigame the player was queued for or <code>null</code> if they were not queued
+     */
+    @Nullable
+    public NamespacedKey dequeue(Player player)
+    {
+        Ticket ticket = this.tickets.remove(player.getUniqueId());
+        if (ticket == null)
+            return null;
+        // The ticket is left in the queue and skipped when it is reached. A matched ticket is no longer counted, but removing it stops the player being put back if the match fails
+        if (ticket.state.compareAndSet(WAITING, CANCELLED))
+            ticket.queue.size.decrementAndGet();
+        return ticket.queue.key;
+    }
+
+    /**
+     * Forms matches for every queue with enough players waiting.
+     */
+    public void tick()
+    {
+        if (++this.ticks < this.interval)
+            return;
+        this.ticks = 0;
+
+        // Opened here so queues for minigames registered later can be joined from any thread
+        for (NamespacedKey key : MinigameRegistry.getKeys())
+            this.getQueue(key);
+        for (MatchQueue queue : this.queues.values())
+        {
+            queue.fillOpenGames();
+            while (queue.size.get() >= queue.minPlayers)
+            {
+                List<Ticket> match = queue.poll(queue.maxPlayers);
+                if (match.isEmpty())
+                    break;
+                if (match.size() < queue.minPlayers)
+                {
+                    // Some players turned out to be unavailable, so wait for more
+                    queue.requeue(match);
+                    break;
+                }
+                this.start(queue, match);
+            }
+        }
+    }
+
+    private void start(MatchQueue queue, List<Ticket> match)
+    {
+        try
+        {
+            this.manager.start(queue.nextName(), queue.key, StartPriority.MATCHMAKING).thenAccept(game ->
+            {
+                queue.owned.add(game.getName());
+                queue.recordWaitTimes(match);
+                queue.admit(game, match);
+            }).exceptionally(e ->
+            {
+                Bukkit.getLogger().warning("Failed to start match for " + queue.key);
+                e.printStackTrace();
+                queue.requeue(match);
+                return null;
+            });
+        }
+        catch (RuntimeException e)
+        {
+            Bukkit.getLogger().warning("Failed to start match for " + queue.key);
+            e.printStackTrace();
+            queue.requeue(match);
+        }
+    }
+
+    /**
+     * Starts an empty game that queued players are sent to as soon as they queue. Must be called on the main thread.
+     *
+     * @param key The minigame to start
+     */
+    public void openInstance(NamespacedKey key)
+    {
+        MatchQueue queue = this.getQueue(key);
+        queue.starting++;
+        try
+        {
+            this.manager.start(queue.nextName(), key, StartPriority.PREWARM).whenComplete((game, e) ->
+            {
+                queue.starting--;
+                if (e != null)
+                {
+                    Bukkit.getLogger().warning("Failed to open instance for " + key);
+                    e.printStackTrace();
+                    return;
+                }
+                queue.owned.add(game.getName());
+                queue.open.add(game);
+            });
+        }
+        catch (RuntimeException e)
+        {
+            queue.starting--;
+            Bukkit.getLogger().warning("Failed to open instance for " + key);
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Stops one matchmade game of the specified minigame that nobody is playing. Must be called on the main thread.
+     *
+     * @param key The minigame to retire an instance of
+     * @return Whether an empty instance was found and stopped
+     */
+    public boolean retireInstance(NamespacedKey key)
+    {
+        MatchQueue queue = this.queues.get(key);
+        if (queue == null)
+            return false;
+
+        Iterator<MinigameManager.RunningGame> iterator = queue.open.iterator();
+        while (iterator.hasNext())
+        {
+            MinigameManager.RunningGame game = iterator.next();
+            if (!game.getMinigame().getWorld().getPlayers().isEmpty())
+                continue;
+            iterator.remove();
+            this.manager.stop(game.getName());
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks how many matchmade games of the specified minigame can still take players. Must be called on the main thread.
+     *
+     * @param key The minigame to check
+     * @return The number of starting instances and open instances that are not full
+     */
+    public int getOpenInstances(NamespacedKey key)
+    {
+        MatchQueue queue = this.queues.get(key);
+        if (queue == null)
+            return 0;
+        queue.open.removeIf(game -> !queue.isRunning(game));
+        int open = queue.starting;
+        for (MinigameManager.RunningGame game : queue.open)
+            if (queue.getRoom(game) > 0)
+                open++;
+        return open;
+    }
+
+    /**
+     * Finds the games matchmaking started for the specified minigame that are still running. Games started any other way, such as with a command, are never included. Must be called on the main thread.
+     *
+     * @param key The minigame to check
+     * @return Every matchmade game of that minigame that has been set up
+     */
+    public List<MinigameManager.RunningGame> getOwnedGames(NamespacedKey key)
+    {
+        MatchQueue queue = this.queues.get(key);
+        if (queue == null)
+            return Collections.emptyList();
+
+        // Tracked by name so a game keeps belonging to matchmaking when it is reset into a new instance
+        List<MinigameManager.RunningGame> games = new ArrayList<>();
+        Iterator<String> iterator = queue.owned.iterator();
+        while (iterator.hasNext())
+        {
+            MinigameManager.RunningGame game = this.manager.getRunningGame(iterator.next()).orElse(null);
+            if (game == null)
+                iterator.remove();
+            else if (game.getMinigame() != null)
+                games.add(game);
+        }
+        return games;
+    }
+
+    /**
+     * @param key The minigame to check
+     * @return The number of players waiting for that minigame
+     */
+    public int getQueueDepth(NamespacedKey key)
+    {
+        MatchQueue queue = this.queues.get(key);
+        return queue != null ? queue.size.get() : 0;
+    }
+
+    /**
+     * @param key The minigame to check
+     * @return The most players matchmaking puts into one game of that minigame
+     */
+    public int getMaxPlayers(NamespacedKey key)
+    {
+        int min = this.getMinPlayers(key);
+        int max = MinigameRegistry.getMaxPlayers(key);
+        return Math.max(min, max < 0 ? this.defaultMaxPlayers : max);
+    }
+
+    /**
+     * @return The number of players waiting for each minigame
+     */
+    public Map<NamespacedKey, Integer> getQueueDepths()
+    {
+        Map<NamespacedKey, Integer> depths = new HashMap<>();
+        this.queues.forEach((key, queue) -> depths.put(key, queue.size.get()));
+        return depths;
+    }
+
+    /**
+     * Retrieves how long players waited in the queue for the specified minigame.
+     *
+     * @param key The minigame to check
+     * @return The time between queueing and being matched or <code>null</code> if nobody has queued for that minigame
+     */
+    @Nullable
+    public RollingHistogram getWaitTimes(NamespacedKey key)
+    {
+        MatchQueue queue = this.queues.get(key);
+        return queue != null ? queue.waitTimes : null;
+    }
+
+    private int getMinPlayers(NamespacedKey key)
+    {
+        int min = MinigameRegistry.getMinPlayers(key);
+        return Math.max(1, min < 0 ? this.defaultMinPlayers : min);
+    }
+
+    private MatchQueue getQueue(NamespacedKey key)
+    {
+        MatchQueue queue = this.queues.get(key);
+        if (queue != null)
+            return queue;
+
+        // Opening a queue registers metrics, so it is only done on the main thread
+        if (!Bukkit.isPrimaryThread())
+            throw new IllegalStateException("Matchmaking for " + key + " has not opened yet");
+        queue = new MatchQueue(key);
+        this.queues.put(key, queue);
+        return queue;
+    }
+
+    /**
+     * Removes every player from every queue.
+     */
+    public void clear()
+    {
+        this.queues.clear();
+        this.tickets.clear();
+    }
+
+    private class MatchQueue
+    {
+        private final NamespacedKey key;
+        private final ConcurrentLinkedDeque<Ticket> waiting;
+        private final AtomicInteger size;
+        private final AtomicInteger counter;
+        private final int minPlayers;
+        private final int maxPlayers;
+        private final RollingHistogram waitTimes;
+        private final List<MinigameManager.RunningGame> open;
+        private final Set<String> owned;
+        private int starting;
+
+        private MatchQueue(NamespacedKey key)
+        {
+            this.key = key;
+            this.waiting = new ConcurrentLinkedDeque<>();
+            this.size = new AtomicInteger();
+            this.counter = new AtomicInteger();
+            this.minPlayers = Matchmaker.this.getMinPlayers(key);
+            this.maxPlayers = Matchmaker.this.getMaxPlayers(key);
+            this.waitTimes = new RollingHistogram();
+            this.open = new ArrayList<>();
+            this.owned = new HashSet<>();
+            Ludum.getInstance().getMetrics().gauge("ludum_matchmaking_queue_depth", "Players waiting to be matched", this.size::get, "minigame", key.toString());
+        }
+
+        private String nextName()
+        {
+            String name;
+            do
+            {
+                name = this.key.getKey() + "-" + this.counter.incrementAndGet();
+            }
+            while (Matchmaker.this.manager.getRunningGame(name).isPresent());
+            return name;
+        }
+
+        /**
+         * Claims up to the specified number of players that can still be matched.
+         */
+        private List<Ticket> poll(int count)
+        {
+            List<Ticket> match = new ArrayList<>(count);
+            Ticket ticket;
+            while (match.size() < count && (ticket = this.waiting.poll()) != null)
+            {
+                if (!ticket.state.compareAndSet(WAITING, MATCHED))
+                    continue;
+                this.size.decrementAndGet();
+                // Players may have left or joined another game since queueing
+                if (ticket.player.isOnline() && Matchmaker.this.manager.getGameOf(ticket.player) == null)
+                    match.add(ticket);
+                else
+                    Matchmaker.this.tickets.remove(ticket.player.getUniqueId(), ticket);
+            }
+            return match;
+        }
+
+        /**
+         * Puts the specified players back at the front of the queue in their original order, unless they left the queue after being matched.
+         */
+        private void requeue(List<Ticket> match)
+        {
+            for (int i = match.size() - 1; i >= 0; i--)
+            {
+                Ticket old = match.get(i);
+                // Matched tickets stay registered until the match is settled, so a missing one means the player asked to leave
+                if (!Matchmaker.this.tickets.remove(old.player.getUniqueId(), old) || !old.player.isOnline())
+                    continue;
+                Ticket ticket = new Ticket(this, old.player, old.queued);
+                if (Matchmaker.this.tickets.putIfAbsent(old.player.getUniqueId(), ticket) != null)
+                    continue;
+                this.size.incrementAndGet();
+                this.waiting.offerFirst(ticket);
+            }
+        }
+
+        /**
+         * Lets waiting players into matchmade games that still have room, even when there are too few to start a new one.
+         */
+        private void fillOpenGames()
+        {
+            Iterator<MinigameManager.RunningGame> iterator = this.open.iterator();
+            while (iterator.hasNext() && this.size.get() > 0)
+            {
+                MinigameManager.RunningGame game = iterator.next();
+                if (!this.isRunning(game))
+                {
+                    iterator.remove();
+                    continue;
+                }
+
+                // Full games stay open so they take players again once someone leaves
+                int room = this.getRoom(game);
+                if (room <= 0)
+                    continue;
+
+                List<Ticket> match = this.poll(room);
+                if (match.isEmpty())
+                    continue;
+                // Taken out of the open list until these players arrive so the same room is not handed out twice
+                iterator.remove();
+                this.recordWaitTimes(match);
+                this.admit(game, match);
+            }
+        }
+
+        /**
+         * Moves the matched players into the game and keeps it open for more players while it is still running.
+         */
+        private void admit(MinigameManager.RunningGame game, List<Ticket> match)
+        {
+            game.addPlayers(match.stream().map(ticket -> ticket.player).collect(Collectors.toList())).whenComplete((admitted, e) ->
+            {
+                List<Ticket> rejected = new ArrayList<>();
+                for (Ticket ticket : match)
+                {
+                    if (admitted != null && admitted.contains(ticket.player))
+                        Matchmaker.this.tickets.remove(ticket.player.getUniqueId(), ticket);
+                    else
+                        rejected.add(ticket);
+                }
+                this.requeue(rejected);
+                if (this.isRunning(game) && !this.open.contains(game))
+                    this.open.add(game);
+            });
+        }
+
+        private boolean isRunning(MinigameManager.RunningGame game)
+        {
+            return Matchmaker.this.manager.getRunningGame(game.getName()).orElse(null) == game;
+        }
+
+        private int getRoom(MinigameManager.RunningGame game)
+        {
+            return this.maxPlayers - game.getMinigame().getWorld().getPlayers().size();
+        }
+
+        private void recordWaitTimes(List<Ticket> match)
+        {
+            long now = System.nanoTime();
+            for (Ticket ticket : match)
+                this.waitTimes.record(now - ticket.queued);
+        }
+    }
+
+    private static class Ticket
+    {
+        private final MatchQueue queue;
+        private final Player player;
+        private final long queued;
+        private final AtomicInteger state;
+
+        private Ticket(MatchQueue queue, Player player, long queued)
+        {
+            this.queue = queue;
+            this.player = player;
+            this.queued = queued;
+            this.state = new AtomicInteger(WAITING);
+        }
+    }
+}
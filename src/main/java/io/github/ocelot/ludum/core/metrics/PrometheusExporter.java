@@ -0,0 +1,205 @@
+package io.github.ocelot.ludum.core.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.ocelot.ludum.api.metrics.*;
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.ConfigurationSection;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+
+/**
+ * <p>Serves every metric in a registry in the Prometheus text format.</p>
+ * <p>Scrapes are answered on a single daemon thread, so reading metrics never touches the main thread. The endpoint listens on the loopback address unless configured otherwise.</p>
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public class PrometheusExporter
+{
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final MetricRegistry registry;
+    private final String address;
+    private final int port;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public PrometheusExporter(MetricRegistry registry, ConfigurationSection config)
+    {
+        this.registry = registry;
+        this.address = config.getString("address", "127.0.0.1");
+        this.port = config.getInt("port", 9464);
+    }
+
+    /**
+     * Starts listening for scrapes. Failing to bind is logged instead of stopping the plugin from enabling.
+     */
+    public void start()
+    {
+        try
+        {
+            this.server = HttpServer.create(new InetSocketAddress(this.address, this.port), 0);
+        }
+        catch (IOException e)
+        {
+            Bukkit.getLogger().log(Level.SEVERE, "Failed to serve metrics on " + this.address + ":" + this.port, e);
+            return;
+        }
+
+        this.executor = Executors.newSingleThreadExecutor(task ->
+        {
+            Thread thread = new Thread(task, "Ludum-Metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server.createContext("/metrics", this::handle);
+        this.server.setExecutor(this.executor);
+        this.server.start();
+        Bukkit.getLogger().info("Serving metrics on http://" + this.address + ":" + this.port + "/metrics");
+    }
+
+    /**
+     * Stops listening for scrapes.
+     */
+    public void close()
+    {
+        if (this.server != null)
+        {
+            this.server.stop(0);
+            this.server = null;
+        }
+        if (this.executor != null)
+        {
+            this.executor.shutdownNow();
+            this.executor = null;
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException
+    {
+        try (exchange)
+        {
+            if (!"GET".equals(exchange.getRequestMethod()) && !"HEAD".equals(exchange.getRequestMethod()))
+            {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            byte[] body = this.write().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            if ("HEAD".equals(exchange.getRequestMethod()))
+            {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody())
+            {
+                os.write(body);
+            }
+        }
+    }
+
+    /**
+     * @return Every metric in the registry in the Prometheus text format
+     */
+    public String write()
+    {
+        // Every series of a metric has to be written together under a single header
+        Map<String, List<Metric>> families = new TreeMap<>();
+        for (Metric metric : this.registry.getMetrics())
+            families.computeIfAbsent(metric.getName(), __ -> new ArrayList<>()).add(metric);
+
+        StringBuilder builder = new StringBuilder();
+        families.forEach((name, metrics) ->
+        {
+            Metric first = metrics.get(0);
+            builder.append("# HELP ").append(name).append(' ').append(first.getHelp().replace("\\", "\\\\").replace("\n", "\\n")).append('\n');
+            builder.append("# TYPE ").append(name).append(' ').append(getType(first)).append('\n');
+            metrics.sort(Comparator.comparing(Metric::getLabels));
+            for (Metric metric : metrics)
+            {
+                try
+                {
+                    write(builder, metric);
+                }
+                catch (RuntimeException e)
+                {
+                    // A gauge that fails to read is left out instead of failing the whole scrape
+                    Bukkit.getLogger().log(Level.WARNING, "Failed to read metric " + name + "{" + metric.getLabels() + "}", e);
+                }
+            }
+        });
+        return builder.toString();
+    }
+
+    private static void write(StringBuilder builder, Metric metric)
+    {
+        if (metric instanceof Counter)
+        {
+            writeSample(builder, metric.getName(), metric.getLabels(), null, ((Counter) metric).get());
+        }
+        else if (metric instanceof Gauge)
+        {
+            double value = ((Gauge) metric).get();
+            writeSample(builder, metric.getName(), metric.getLabels(), null, value);
+        }
+        else if (metric instanceof Histogram)
+        {
+            Histogram histogram = (Histogram) metric;
+            double[] bounds = histogram.getBounds();
+            long[] counts = histogram.getCumulativeCounts();
+            StringBuilder sample = new StringBuilder(128);
+            for (int i = 0; i < bounds.length; i++)
+                writeSample(sample, metric.getName() + "_bucket", metric.getLabels(), formatDouble(bounds[i]), counts[i]);
+            writeSample(sample, metric.getName() + "_bucket", metric.getLabels(), "+Inf", counts[bounds.length]);
+            writeSample(sample, metric.getName() + "_sum", metric.getLabels(), null, histogram.getSum());
+            writeSample(sample, metric.getName() + "_count", metric.getLabels(), null, counts[bounds.length]);
+            builder.append(sample);
+        }
+    }
+
+    private static void writeSample(StringBuilder builder, String name, String labels, String le, double value)
+    {
+        builder.append(name);
+        if (!labels.isEmpty() || le != null)
+        {
+            builder.append('{').append(labels);
+            if (le != null)
+                builder.append(labels.isEmpty() ? "" : ",").append("le=\"").append(le).append('"');
+            builder.append('}');
+        }
+        builder.append(' ').append(formatDouble(value)).append('\n');
+    }
+
+    private static String formatDouble(double value)
+    {
+        if (Double.isNaN(value))
+            return "NaN";
+        if (Double.isInfinite(value))
+            return value > 0 ? "+Inf" : "-Inf";
+        if (value == Math.rint(value) && Math.abs(value) < 1e15)
+            return Long.toString((long) value);
+        return Double.toString(value);
+    }
+
+    private static String getType(Metric metric)
+    {
+        if (metric instanceof Counter)
+            return "counter";
+        if (metric instanceof Gauge)
+            return "gauge";
+        if (metric instanceof Histogram)
+            return "histogram";
+        return "untyped";
+    }
+}
@@ -0,0 +1,249 @@
+package io.github.ocelot.ludum.core.profile;
+
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.Arrays;
+
+/**
+ * <p>A latency histogram over the last second, minute and five minutes.</p>
+ * <p>Values are placed into fixed log-scale buckets, four per power of two, so recording never allocates. This class is not thread safe and is only used from the main thread.</p>
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public class RollingHistogram
+{
+    private static final int BUCKETS = 112;
+    private static final int SECONDS = 60;
+    private static final int MINUTES = 5;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final int[][] seconds;
+    private final long[] secondMax;
+    private final int[][] minutes;
+    private final long[] minuteMax;
+    private final int[] merged;
+    private long currentSecond;
+
+    public RollingHistogram()
+    {
+        this.seconds = new int[SECONDS][BUCKETS];
+        this.secondMax = new long[SECONDS];
+        this.minutes = new int[MINUTES][BUCKETS];
+        this.minuteMax = new long[MINUTES];
+        this.merged = new int[BUCKETS];
+        this.currentSecond = Math.floorDiv(System.nanoTime(), NANOS_PER_SECOND);
+    }
+
+    /**
+     * Records a single measurement.
+     *
+     * @param nanos The time taken in nanoseconds
+     */
+    public void record(long nanos)
+    {
+        this.advance(System.nanoTime());
+
+        int bucket = bucket(nanos);
+        int second = Math.floorMod(this.currentSecond, SECONDS);
+        int minute = Math.floorMod(Math.floorDiv(this.currentSecond, SECONDS), MINUTES);
+        this.seconds[second][bucket]++;
+        this.minutes[minute][bucket]++;
+        if (nanos > this.secondMax[second])
+            this.secondMax[second] = nanos;
+        if (nanos > this.minuteMax[minute])
+            this.minuteMax[minute] = nanos;
+    }
+
+    /**
+     * Summarizes all measurements in the specified window.
+     *
+     * @param window The window to read
+     * @return The percentiles and maximum over that window
+     */
+    public Snapshot snapshot(Window window)
+    {
+        this.advance(System.nanoTime());
+
+        Arrays.fill(this.merged, 0);
+        long max = 0;
+        switch (window)
+        {
+            case SECOND:
+            {
+                // The current second is still filling up, so report the last complete one
+                int second = Math.floorMod(this.currentSecond - 1, SECONDS);
+                System.arraycopy(this.seconds[second], 0, this.merged, 0, BUCKETS);
+                max = this.secondMax[second];
+                break;
+            }
+            case MINUTE:
+            {
+                for (int i = 0; i < SECONDS; i++)
+                {
+                    merge(this.seconds[i], this.merged);
+                    max = Math.max(max, this.secondMax[i]);
+                }
+                break;
+            }
+            case FIVE_MINUTES:
+            {
+                for (int i = 0; i < MINUTES; i++)
+                {
+                    merge(this.minutes[i], this.merged);
+                    max = Math.max(max, this.minuteMax[i]);
+                }
+                break;
+            }
+        }
+
+        long count = 0;
+        for (int value : this.merged)
+            count += value;
+        // Bucket bounds are approximate, so never report a percentile above the exact maximum
+        return new Snapshot(count, Math.min(percentile(this.merged, count, 0.5), max), Math.min(percentile(this.merged, count, 0.99), max), max);
+    }
+
+    private void advance(long now)
+    {
+        long second = Math.floorDiv(now, NANOS_PER_SECOND);
+        if (second == this.currentSecond)
+            return;
+
+        long elapsed = Math.min(second - this.currentSecond, SECONDS);
+        for (long i = 1; i <= elapsed; i++)
+        {
+            int slot = Math.floorMod(this.currentSecond + i, SECONDS);
+            Arrays.fill(this.seconds[slot], 0);
+            this.secondMax[slot] = 0;
+        }
+
+        long lastMinute = Math.floorDiv(this.currentSecond, SECONDS);
+        long elapsedMinutes = Math.min(Math.floorDiv(second, SECONDS) - lastMinute, MINUTES);
+        for (long i = 1; i <= elapsedMinutes; i++)
+        {
+            int slot = Math.floorMod(lastMinute + i, MINUTES);
+            Arrays.fill(this.minutes[slot], 0);
+            this.minuteMax[slot] = 0;
+        }
+
+        this.currentSecond = second;
+    }
+
+    private static void merge(int[] from, int[] into)
+    {
+        for (int i = 0; i < BUCKETS; i++)
+            into[i] += from[i];
+    }
+
+    private static long percentile(int[] buckets, long count, double percentile)
+    {
+        if (count == 0)
+            return 0;
+        long target = (long) Math.ceil(count * percentile);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            seen += buckets[i];
+            if (seen >= target)
+                return upperBound(i);
+        }
+        return upperBound(BUCKETS - 1);
+    }
+
+    private static int bucket(long nanos)
+    {
+        if (nanos < 1024)
+            return 0;
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) (nanos >>> (exponent - 2)) & 3;
+        return Math.min(1 + (exponent - 10) * 4 + sub, BUCKETS - 1);
+    }
+
+    private static long upperBound(int bucket)
+    {
+        if (bucket == 0)
+            return 1024;
+        int exponent = 10 + (bucket - 1) / 4;
+        int sub = (bucket - 1) % 4;
+        return (long) (5 + sub) << (exponent - 2);
+    }
+
+    /**
+     * <p>The time windows a histogram can be read over.</p>
+     *
+     * @author Ocelot
+     */
+    public enum Window
+    {
+        SECOND("1s"), MINUTE("1m"), FIVE_MINUTES("5m");
+
+        private final String displayName;
+
+        Window(String displayName)
+        {
+            this.displayName = displayName;
+        }
+
+        /**
+         * @return The short name to show players
+         */
+        public String getDisplayName()
+        {
+            return displayName;
+        }
+    }
+
+    /**
+     * <p>A summary of the measurements in a single window.</p>
+     *
+     * @author Ocelot
+     */
+    public static class Snapshot
+    {
+        private final long count;
+        private final long p50;
+        private final long p99;
+        private final long max;
+
+        private Snapshot(long count, long p50, long p99, long max)
+        {
+            this.count = count;
+            this.p50 = p50;
+            this.p99 = p99;
+            this.max = max;
+        }
+
+        /**
+         * @return The number of measurements
+         */
+        public long getCount()
+        {
+            return count;
+        }
+
+        /**
+         * @return The median time in nanoseconds
+         */
+        public long getP50()
+        {
+            return p50;
+        }
+
+        /**
+         * @return The 99th percentile time in nanoseconds
+         */
+        public long getP99()
+        {
+            return p99;
+        }
+
+        /**
+         * @return The longest time in nanoseconds
+         */
+        public long getMax()
+        {
+            return max;
+        }
+    }
+}
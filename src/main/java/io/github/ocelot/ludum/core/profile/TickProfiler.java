@@ -0,0 +1,86 @@
+package io.github.ocelot.ludum.core.profile;
+
+import io.github.ocelot.ludum.api.MinigameState;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>Tracks how long each type of minigame state takes to tick and how long each template takes to get ready or reset.</p>
+ * <p>Per game tick times are kept on each running game so they disappear when the game ends.</p>
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public class TickProfiler
+{
+    private final Map<Class<? extends MinigameState>, RollingHistogram> states;
+    private final Map<String, RollingHistogram> readyTimes;
+    private final Map<String, RollingHistogram> resetTimes;
+
+    public TickProfiler()
+    {
+        this.states = new HashMap<>();
+        this.readyTimes = new HashMap<>();
+        this.resetTimes = new HashMap<>();
+    }
+
+    /**
+     * Retrieves the histogram for the specified state type, creating it if it does not exist yet.
+     *
+     * @param type The type of state
+     * @return The tick times for all states of that type
+     */
+    public RollingHistogram getStateTimes(Class<? extends MinigameState> type)
+    {
+        return this.states.computeIfAbsent(type, __ -> new RollingHistogram());
+    }
+
+    /**
+     * @return The tick times for every state type that has ticked
+     */
+    public Map<Class<? extends MinigameState>, RollingHistogram> getStateTimes()
+    {
+        return Collections.unmodifiableMap(this.states);
+    }
+
+    /**
+     * Retrieves the histogram for the specified template, creating it if it does not exist yet.
+     *
+     * @param template The name of the world template
+     * @return The time from a start request until the arena was loaded for games using that template
+     */
+    public RollingHistogram getReadyTimes(String template)
+    {
+        return this.readyTimes.computeIfAbsent(template, __ -> new RollingHistogram());
+    }
+
+    /**
+     * @return The time to ready for every template that has been started
+     */
+    public Map<String, RollingHistogram> getReadyTimes()
+    {
+        return Collections.unmodifiableMap(this.readyTimes);
+    }
+
+    /**
+     * Retrieves the reset histogram for the specified template, creating it if it does not exist yet.
+     *
+     * @param template The name of the world template
+     * @return The time from a reset request until the arena was loaded again for games using that template
+     */
+    public RollingHistogram getResetTimes(String template)
+    {
+        return this.resetTimes.computeIfAbsent(template, __ -> new RollingHistogram());
+    }
+
+    /**
+     * @return The time to reset for every template that has been reset
+     */
+    public Map<String, RollingHistogram> getResetTimes()
+    {
+        return Collections.unmodifiableMap(this.resetTimes);
+    }
+}
@@ -0,0 +1,30 @@
+package io.github.ocelot.ludum.core.profile.jfr;
+
+import jdk.jfr.*;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * <p>Recorded when a player has arrived in a game.</p>
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+@Name("ludum.AddPlayer")
+@Label("Add Player")
+@Category({"Ludum", "Player"})
+@Description("Moves a player into a game")
+public class AddPlayerEvent extends Event
+{
+    @Label("Game")
+    public String game;
+
+    @Label("Instance Id")
+    public int id;
+
+    @Label("Player")
+    public String player;
+
+    @Label("Batched")
+    @Description("Whether the player was admitted in waves together with others")
+    public boolean batched;
+}
@@ -0,0 +1,46 @@
+package io.github.ocelot.ludum.core.profile.jfr;
+
+import jdk.jfr.*;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * <p>Recorded when a running game has moved its players out and unloaded its world.</p>
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+@Name("ludum.CloseGame")
+@Label("Close Game")
+@Category({"Ludum", "Game"})
+@Description("Closes a minigame, moves its players out and unloads the world")
+public class CloseGameEvent extends Event
+{
+    @Label("Game")
+    public String game;
+
+    @Label("Instance Id")
+    public int id;
+
+    @Label("Players")
+    public int players;
+
+    @Label("Close Time")
+    @Description("Time spent in Minigame.close")
+    @Timespan
+    public long closeTime;
+
+    @Label("Teleport Time")
+    @Description("Time until every player had been moved out of the world")
+    @Timespan
+    public long teleportTime;
+
+    @Label("Unload Time")
+    @Description("Time spent unloading the world on the main thread")
+    @Timespan
+    public long unloadTime;
+
+    @Label("Trash Time")
+    @Description("Time spent moving the world folder into the trash")
+    @Timespan
+    public long trashTime;
+}
@@ -0,0 +1,37 @@
+package io.github.ocelot.ludum.core.profile.jfr;
+
+import jdk.jfr.*;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * <p>Recorded when a world folder is created from a template.</p>
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+@Name("ludum.LoadWorld")
+@Label("Load World")
+@Category({"Ludum", "World"})
+@Description("Moves any stale folder out of the way and copies a world template into it")
+public class LoadWorldEvent extends Event
+{
+    @Label("Template")
+    public String template;
+
+    @Label("Folder")
+    public String folder;
+
+    @Label("Bytes Copied")
+    @DataAmount
+    public long bytes;
+
+    @Label("Trash Time")
+    @Description("Time spent moving the previous folder into the trash")
+    @Timespan
+    public long trashTime;
+
+    @Label("Copy Time")
+    @Description("Time spent copying, linking or extracting the template")
+    @Timespan
+    public long copyTime;
+}
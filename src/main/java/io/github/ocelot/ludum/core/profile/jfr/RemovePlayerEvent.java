@@ -0,0 +1,26 @@
+package io.github.ocelot.ludum.core.profile.jfr;
+
+import jdk.jfr.*;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * <p>Recorded when a player has been moved out of a game.</p>
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+@Name("ludum.RemovePlayer")
+@Label("Remove Player")
+@Category({"Ludum", "Player"})
+@Description("Removes a player from a game and moves them back to the main world")
+public class RemovePlayerEvent extends Event
+{
+    @Label("Game")
+    public String game;
+
+    @Label("Instance Id")
+    public int id;
+
+    @Label("Player")
+    public String player;
+}
@@ -0,0 +1,56 @@
+package io.github.ocelot.ludum.core.profile.jfr;
+
+import jdk.jfr.*;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * <p>Recorded when a game finishes starting, from the start request until the game is running.</p>
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+@Name("ludum.StartGame")
+@Label("Start Game")
+@Category({"Ludum", "Game"})
+@Description("Loads the world for a new game, waits for its arena and sets up the minigame")
+public class StartGameEvent extends Event
+{
+    @Label("Game")
+    public String game;
+
+    @Label("Minigame")
+    public String minigame;
+
+    @Label("Template")
+    public String template;
+
+    @Label("Instance Id")
+    public int id;
+
+    @Label("Pooled")
+    @Description("Whether the world came from the world pool")
+    public boolean pooled;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+
+    @Label("Load Time")
+    @Description("Time until the world folder was ready, including waiting for a background thread")
+    @Timespan
+    public long loadTime;
+
+    @Label("Create World Time")
+    @Description("Time spent in Bukkit.createWorld on the main thread")
+    @Timespan
+    public long createWorldTime;
+
+    @Label("Arena Time")
+    @Description("Time spent waiting for the arena chunks to load")
+    @Timespan
+    public long arenaTime;
+
+    @Label("Init Time")
+    @Description("Time spent setting up the minigame")
+    @Timespan
+    public long initTime;
+}
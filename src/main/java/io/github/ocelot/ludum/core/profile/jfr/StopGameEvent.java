@@ -0,0 +1,29 @@
+package io.github.ocelot.ludum.core.profile.jfr;
+
+import jdk.jfr.*;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * <p>Recorded when a stopped game has been closed and its id freed.</p>
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+@Name("ludum.StopGame")
+@Label("Stop Game")
+@Category({"Ludum", "Game"})
+@Description("Removes a game from the manager and closes it")
+public class StopGameEvent extends Event
+{
+    @Label("Game")
+    public String game;
+
+    @Label("Minigame")
+    public String minigame;
+
+    @Label("Instance Id")
+    public int id;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
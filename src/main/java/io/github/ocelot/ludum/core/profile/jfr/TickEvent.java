@@ -0,0 +1,51 @@
+package io.github.ocelot.ludum.core.profile.jfr;
+
+import jdk.jfr.*;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * <p>Recorded for each server tick the manager runs, broken down by phase.</p>
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+@Name("ludum.Tick")
+@Label("Minigame Tick")
+@Category({"Ludum", "Tick"})
+@Description("Ticks every running minigame and the systems around them")
+@Threshold("1 ms")
+public class TickEvent extends Event
+{
+    @Label("Games")
+    public int games;
+
+    @Label("Housekeeping Time")
+    @Description("Time spent applying late async commands and ending stopped games")
+    @Timespan
+    public long housekeepingTime;
+
+    @Label("Async Time")
+    @Description("Time the main thread spent on the world pool and waiting for async ticks, including applying their commands")
+    @Timespan
+    public long asyncTime;
+
+    @Label("Timer Time")
+    @Description("Time spent running scheduled tasks")
+    @Timespan
+    public long timerTime;
+
+    @Label("Game Tick Time")
+    @Description("Time spent ticking games on the main thread")
+    @Timespan
+    public long gameTickTime;
+
+    @Label("Matchmaking Time")
+    @Description("Time spent matchmaking and autoscaling")
+    @Timespan
+    public long matchmakingTime;
+
+    @Label("Main Thread Work Time")
+    @Description("Time spent creating and unloading worlds and moving players out of closing games")
+    @Timespan
+    public long mainThreadWorkTime;
+}
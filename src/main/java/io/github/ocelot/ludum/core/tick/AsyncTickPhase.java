@@ -0,0 +1,185 @@
+package io.github.ocelot.ludum.core.tick;
+
+import io.github.ocelot.ludum.api.CommandBuffer;
+import io.github.ocelot.ludum.api.Minigame;
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.ConfigurationSection;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * <p>Runs {@link Minigame#tickAsync(CommandBuffer)} for every game at once on background threads at the start of a tick.</p>
+ * <p>The main thread waits for all games up to a deadline and then applies their commands. A game that misses the deadline keeps running in the background and does not tick on the main thread until it has finished.</p>
+ * <p>Each tick waits on its own latch, so a game finishing after the main thread has stopped waiting never wakes it up later.</p>
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public class AsyncTickPhase
+{
+    private static final int IDLE = 0;
+    private static final int RUNNING = 1;
+    private static final int DONE = 2;
+
+    private final Executor executor;
+    private final long deadlineNanos;
+    private Task[] tasks;
+    private Task[] starting;
+    private CountDownLatch outstanding;
+
+    public AsyncTickPhase(Executor executor, ConfigurationSection config)
+    {
+        this.executor = executor;
+        this.deadlineNanos = TimeUnit.MICROSECONDS.toNanos((long) (config.getDouble("join-deadline-ms", 10.0) * 1000));
+        this.tasks = new Task[0];
+        this.starting = new Task[0];
+    }
+
+    /**
+     * Replaces the games that take part in the async phase.
+     *
+     * @param tasks The tasks for each game with an async tick
+     */
+    public void setTasks(Task[] tasks)
+    {
+        this.tasks = tasks;
+        this.starting = new Task[tasks.length];
+    }
+
+    /**
+     * Starts the async tick of every game that will tick this tick and is not still busy from an earlier tick.
+     * <p>A game put off by the tick budget stays due until its main thread tick runs, but its async tick only runs once for that tick.</p>
+     *
+     * @param scheduler The scheduler deciding which games tick
+     */
+    public void begin(TickScheduler scheduler)
+    {
+        this.outstanding = null;
+        int count = 0;
+        for (Task task : this.tasks)
+        {
+            if (task.state != IDLE || !scheduler.isDue(task.entry) || task.startedTick > task.entry.getLastTick())
+                continue;
+            task.state = RUNNING;
+            task.startedTick = scheduler.getTick();
+            this.starting[count++] = task;
+        }
+        if (count == 0)
+            return;
+
+        CountDownLatch outstanding = new CountDownLatch(count);
+        this.outstanding = outstanding;
+        for (int i = 0; i < count; i++)
+        {
+            Task task = this.starting[i];
+            this.starting[i] = null;
+            try
+            {
+                this.executor.execute(() ->
+                {
+                    task.run();
+                    outstanding.countDown();
+                });
+            }
+            catch (RejectedExecutionException e)
+            {
+                task.state = IDLE;
+                task.startedTick = -1;
+                outstanding.countDown();
+            }
+        }
+    }
+
+    /**
+     * Waits until all async ticks started this tick have finished or the deadline passes.
+     */
+    public void join()
+    {
+        CountDownLatch outstanding = this.outstanding;
+        if (outstanding == null)
+            return;
+
+        try
+        {
+            outstanding.await(this.deadlineNanos, TimeUnit.NANOSECONDS);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Applies the commands of every game that has finished its async tick.
+     */
+    public void apply()
+    {
+        for (Task task : this.tasks)
+        {
+            if (task.state != DONE)
+                continue;
+            try
+            {
+                task.commands.apply();
+            }
+            catch (Throwable t)
+            {
+                Bukkit.getLogger().log(Level.SEVERE, "Failed to apply async tick commands for " + task.name, t);
+            }
+            task.state = IDLE;
+        }
+    }
+
+    /**
+     * <p>The async tick state of a single game.</p>
+     *
+     * @author Ocelot
+     */
+    public static class Task
+    {
+        private final String name;
+        private final Minigame minigame;
+        private final TickScheduler.Entry entry;
+        private final CommandBuffer commands;
+        private volatile int state;
+        private long startedTick;
+
+        public Task(String name, Minigame minigame, TickScheduler.Entry entry)
+        {
+            this.name = name;
+            this.minigame = minigame;
+            this.entry = entry;
+            this.commands = new CommandBuffer();
+            this.state = IDLE;
+            this.startedTick = -1;
+        }
+
+        private void run()
+        {
+            try
+            {
+                this.minigame.tickAsync(this.commands);
+            }
+            catch (Throwable t)
+            {
+                // Commands from a failed tick may be incomplete, so none of them are applied
+                this.commands.clear();
+                Bukkit.getLogger().log(Level.SEVERE, "Failed to tick " + this.name + " asynchronously", t);
+            }
+            this.state = DONE;
+        }
+
+        /**
+         * @return Whether the async tick is still running in the background
+         */
+        public boolean isRunning()
+        {
+            return this.state == RUNNING;
+        }
+    }
+}
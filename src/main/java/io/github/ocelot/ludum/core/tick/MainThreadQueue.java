@@ -0,0 +1,158 @@
+package io.github.ocelot.ludum.core.tick;
+
+import io.github.ocelot.ludum.api.metrics.Counter;
+import io.github.ocelot.ludum.api.metrics.Histogram;
+import io.github.ocelot.ludum.api.metrics.MetricRegistry;
+import org.bukkit.configuration.ConfigurationSection;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * <p>Runs heavy main thread operations such as creating and unloading worlds within a time budget each tick.</p>
+ * <p>Every kind of job keeps a moving average of how long it takes. Jobs run in the order they were submitted until the next one is expected to go over the budget, and the rest carry over to the next tick. The first job of each tick always runs, so a job that costs more than the whole budget still makes progress.</p>
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public class MainThreadQueue
+{
+    private final Queue<Job<?>> jobs;
+    private final Map<String, Kind> kinds;
+    private final MetricRegistry metrics;
+    private final Counter deferredTicks;
+    private final long budgetNanos;
+    private final double weight;
+
+    public MainThreadQueue(MetricRegistry metrics, ConfigurationSection config)
+    {
+        this.jobs = new ConcurrentLinkedQueue<>();
+        this.kinds = new ConcurrentHashMap<>();
+        this.metrics = metrics;
+        this.deferredTicks = metrics.counter("ludum_main_thread_deferred_ticks_total", "Ticks that left heavy work for the next tick");
+        this.budgetNanos = TimeUnit.MICROSECONDS.toNanos((long) (config.getDouble("budget-ms", 15.0) * 1000));
+        this.weight = Math.min(Math.max(config.getDouble("estimate-weight", 0.2), 0.01), 1.0);
+        metrics.gauge("ludum_main_thread_queue_size", "Heavy main thread jobs waiting for a tick", this.jobs::size);
+    }
+
+    /**
+     * Queues a job to run on the main thread in a later {@link #tick()}. May be called from any thread.
+     *
+     * @param kind The kind of job, jobs of the same kind share a cost estimate
+     * @param task The job to run
+     * @param <T>  The type of value the job produces
+     * @return A future for the result of the job, completed on the main thread
+     */
+    public <T> CompletableFuture<T> submit(String kind, Supplier<T> task)
+    {
+        Job<T> job = new Job<>(this.kinds.computeIfAbsent(kind, Kind::new), task);
+        this.jobs.offer(job);
+        return job.future;
+    }
+
+    /**
+     * Runs queued jobs until the budget for this tick is used up. Must be called on the main thread.
+     */
+    public void tick()
+    {
+        long deadline = System.nanoTime() + this.budgetNanos;
+        boolean first = true;
+        Job<?> job;
+        while ((job = this.jobs.peek()) != null)
+        {
+            long start = System.nanoTime();
+            if (!first && start + job.kind.estimate > deadline)
+            {
+                this.deferredTicks.increment();
+                return;
+            }
+
+            this.jobs.poll();
+            first = false;
+            job.run();
+            job.kind.record(System.nanoTime() - start, this.weight);
+        }
+    }
+
+    /**
+     * Cancels every queued job. Used when the plugin is disabled and no more ticks will run.
+     */
+    public void close()
+    {
+        Job<?> job;
+        while ((job = this.jobs.poll()) != null)
+            job.future.completeExceptionally(new CancellationException("Main thread work was cancelled"));
+    }
+
+    /**
+     * @param kind The kind of job
+     * @return The expected time in nanoseconds a job of that kind takes, or <code>0</code> if none have run yet
+     */
+    public long getEstimate(String kind)
+    {
+        Kind value = this.kinds.get(kind);
+        return value != null ? value.estimate : 0;
+    }
+
+    /**
+     * @return The number of jobs waiting to run
+     */
+    public int size()
+    {
+        return this.jobs.size();
+    }
+
+    private class Kind
+    {
+        private final Histogram times;
+        private volatile long estimate;
+        private boolean measured;
+
+        private Kind(String name)
+        {
+            this.times = MainThreadQueue.this.metrics.histogram("ludum_main_thread_job_seconds", "Time heavy main thread jobs took", "kind", name);
+            MainThreadQueue.this.metrics.gauge("ludum_main_thread_job_estimate_seconds", "Expected time of the next heavy main thread job", () -> this.estimate / 1_000_000_000.0, "kind", name);
+        }
+
+        private void record(long nanos, double weight)
+        {
+            this.times.observeNanos(nanos);
+            // An exponentially weighted average follows changes in cost without being thrown off by a single slow job
+            this.estimate = this.measured ? (long) (this.estimate + (nanos - this.estimate) * weight) : nanos;
+            this.measured = true;
+        }
+    }
+
+    private static class Job<T>
+    {
+        private final Kind kind;
+        private final Supplier<T> task;
+        private final CompletableFuture<T> future;
+
+        private Job(Kind kind, Supplier<T> task)
+        {
+            this.kind = kind;
+            this.task = task;
+            this.future = new CompletableFuture<>();
+        }
+
+        private void run()
+        {
+            try
+            {
+                this.future.complete(this.task.get());
+            }
+            catch (Throwable t)
+            {
+                this.future.completeExceptionally(t);
+            }
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package io.github.ocelot.ludum.core.tick;
+
+import io.github.ocelot.ludum.api.TickPriority;
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.ConfigurationSection;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * <p>Decides which games tick each server tick.</p>
+ * <p>Games only tick on their own interval, games sharing an interval are spread across different ticks, and once the tick budget is used up lower priority games are put off until the next tick.</p>
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public class TickScheduler
+{
+    private final long budgetNanos;
+    private final int maxDeferredTicks;
+    private Entry[] entries;
+    private long tick;
+
+    public TickScheduler(ConfigurationSection config)
+    {
+        this.budgetNanos = TimeUnit.MICROSECONDS.toNanos((long) (config.getDouble("budget-ms", 25.0) * 1000));
+        this.maxDeferredTicks = Math.max(0, config.getInt("max-deferred-ticks", 10));
+        this.entries = new Entry[0];
+    }
+
+    /**
+     * Replaces the entries that are ticked. Entries that have not been scheduled before are given the least used offset for their interval.
+     *
+     * @param entries The new entries to tick
+     */
+    public void setEntries(Entry[] entries)
+    {
+        Entry[] sorted = entries.clone();
+        Arrays.sort(sorted, Comparator.comparing(entry -> entry.priority));
+        for (Entry entry : sorted)
+        {
+            if (entry.phase != -1)
+                continue;
+
+            int[] load = new int[entry.interval];
+            for (Entry other : sorted)
+                if (other.interval == entry.interval && other.phase != -1)
+                    load[other.phase]++;
+
+            int phase = 0;
+            for (int i = 1; i < load.length; i++)
+                if (load[i] < load[phase])
+                    phase = i;
+            entry.phase = phase;
+        }
+        this.entries = sorted;
+    }
+
+    /**
+     * Ticks every entry that is due this tick until the budget runs out.
+     */
+    public void tick()
+    {
+        long start = System.nanoTime();
+        long tick = this.tick++;
+
+        // Entries put off last tick go first so the same games are not deferred every tick
+        for (Entry entry : this.entries)
+            if (entry.pending)
+                this.run(entry, tick, start);
+        for (Entry entry : this.entries)
+        {
+            if (entry.pending || entry.lastTick == tick)
+                continue;
+            if (Math.floorMod(tick - entry.phase, entry.interval) != 0)
+            {
+                entry.skippedTicks++;
+                continue;
+            }
+            entry.pending = true;
+            this.run(entry, tick, start);
+        }
+    }
+
+    /**
+     * Checks whether the specified entry will try to tick on the next call to {@link #tick()}.
+     *
+     * @param entry The entry to check
+     * @return Whether that entry is due or was put off from an earlier tick
+     */
+    public boolean isDue(Entry entry)
+    {
+        return entry.pending || (entry.phase != -1 && Math.floorMod(this.tick - entry.phase, entry.interval) == 0);
+    }
+
+    /**
+     * @return The number of the tick that runs on the next call to {@link #tick()}
+     */
+    public long getTick()
+    {
+        return tick;
+    }
+
+    private void run(Entry entry, long tick, long start)
+    {
+        if (entry.priority != TickPriority.HIGHEST && entry.deferredStreak < this.maxDeferredTicks && System.nanoTime() - start >= this.budgetNanos)
+        {
+            entry.deferredTicks++;
+            entry.deferredStreak++;
+            return;
+        }
+
+        entry.pending = false;
+        entry.deferredStreak = 0;
+        entry.lastTick = tick;
+        try
+        {
+            entry.task.run();
+        }
+        catch (Throwable t)
+        {
+            Bukkit.getLogger().log(Level.SEVERE, "Failed to tick " + entry.name, t);
+        }
+    }
+
+    /**
+     * <p>A single task ticked by the scheduler.</p>
+     *
+     * @author Ocelot
+     */
+    public static class Entry
+    {
+        private final String name;
+        private final Runnable task;
+        private final int interval;
+        private final TickPriority priority;
+        private int phase;
+        private boolean pending;
+        private long lastTick;
+        private int deferredStreak;
+        private long skippedTicks;
+        private long deferredTicks;
+
+        public Entry(String name, Runnable task, int interval, TickPriority priority)
+        {
+            this.name = name;
+            this.task = task;
+            this.interval = Math.max(1, interval);
+            this.priority = priority;
+            this.phase = -1;
+            this.lastTick = -1;
+        }
+
+        /**
+         * @return The tick this entry last ran on, or <code>-1</code> if it has never run
+         */
+        public long getLastTick()
+        {
+            return lastTick;
+        }
+
+        /**
+         * @return The number of ticks skipped because this entry only ticks on an interval
+         */
+        public long getSkippedTicks()
+        {
+            return skippedTicks;
+        }
+
+        /**
+         * @return The number of times this entry was put off to a later tick because the tick budget was used up
+         */
+        public long getDeferredTicks()
+        {
+            return deferredTicks;
+        }
+    }
+}
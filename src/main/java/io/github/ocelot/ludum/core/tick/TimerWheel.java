@@ -0,0 +1,241 @@
+package io.github.ocelot.ludum.core.tick;
+
+import io.github.ocelot.ludum.api.ScheduledTask;
+import org.bukkit.Bukkit;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.logging.Level;
+
+/**
+ * <p>Runs delayed and repeating tasks on the main thread using a hierarchical timing wheel.</p>
+ * <p>Each level has 64 slots covering 64 times the span of the level below it. Tasks are kept in intrusive linked lists so scheduling and cancelling are constant time, and tasks only move to a lower level when their slot comes around. Every task also belongs to a {@link Scope} so all tasks of a game or state can be cancelled at once.</p>
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public class TimerWheel
+{
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    private final Timer[][] wheel;
+    private final Timer overflow;
+    private final Timer dispatch;
+    private long time;
+
+    public TimerWheel()
+    {
+        this.wheel = new Timer[LEVELS][SLOTS];
+        for (Timer[] level : this.wheel)
+            for (int i = 0; i < SLOTS; i++)
+                level[i] = Timer.sentinel();
+        this.overflow = Timer.sentinel();
+        this.dispatch = Timer.sentinel();
+    }
+
+    /**
+     * Schedules a task to run after the specified number of ticks.
+     *
+     * @param scope  The scope that owns the task
+     * @param delay  The number of ticks to wait, at least one
+     * @param period The number of ticks between each repeat or <code>0</code> to only run once
+     * @param task   The task to run
+     * @return A handle to cancel the task with
+     */
+    public Timer schedule(Scope scope, long delay, long period, Runnable task)
+    {
+        Timer timer = new Timer(task, Math.max(0, period));
+        timer.deadline = this.time + Math.max(1, delay);
+        scope.head.linkScope(timer);
+        this.insert(timer);
+        return timer;
+    }
+
+    /**
+     * Advances the wheel by one tick and runs every task that is due.
+     */
+    public void tick()
+    {
+        long time = ++this.time;
+
+        // Move tasks down from higher levels whose slot has come around, highest first so they can cascade all the way
+        if ((time & ((1L << (BITS * LEVELS)) - 1)) == 0)
+            this.cascade(this.overflow);
+        for (int level = LEVELS - 1; level > 0; level--)
+            if ((time & ((1L << (BITS * level)) - 1)) == 0)
+                this.cascade(this.wheel[level][(int) (time >>> (BITS * level)) & MASK]);
+
+        Timer slot = this.wheel[0][(int) time & MASK];
+        if (slot.next == slot)
+            return;
+
+        // Detach the slot so tasks scheduled or cancelled while running cannot disturb the iteration
+        this.dispatch.spliceFrom(slot);
+        while (this.dispatch.next != this.dispatch)
+        {
+            Timer timer = this.dispatch.next;
+            timer.unlink();
+            try
+            {
+                timer.task.run();
+            }
+            catch (Throwable t)
+            {
+                Bukkit.getLogger().log(Level.SEVERE, "Failed to run scheduled task", t);
+            }
+
+            if (timer.period > 0 && timer.scopeNext != null)
+            {
+                timer.deadline = time + timer.period;
+                this.insert(timer);
+            }
+            else
+            {
+                timer.unlinkScope();
+            }
+        }
+    }
+
+    private void cascade(Timer slot)
+    {
+        if (slot.next == slot)
+            return;
+        this.dispatch.spliceFrom(slot);
+        while (this.dispatch.next != this.dispatch)
+        {
+            Timer timer = this.dispatch.next;
+            timer.unlink();
+            this.insert(timer);
+        }
+    }
+
+    private void insert(Timer timer)
+    {
+        long difference = timer.deadline ^ this.time;
+        int level = difference == 0 ? 0 : (63 - Long.numberOfLeadingZeros(difference)) / BITS;
+        Timer slot = level < LEVELS ? this.wheel[level][(int) (timer.deadline >>> (BITS * level)) & MASK] : this.overflow;
+        slot.link(timer);
+    }
+
+    /**
+     * <p>A group of tasks that can all be cancelled together.</p>
+     *
+     * @author Ocelot
+     */
+    public static class Scope
+    {
+        private final Timer head;
+
+        public Scope()
+        {
+            this.head = Timer.sentinel();
+        }
+
+        /**
+         * Cancels every task still scheduled in this scope.
+         */
+        public void cancelAll()
+        {
+            while (this.head.scopeNext != this.head)
+                this.head.scopeNext.cancel();
+        }
+    }
+
+    /**
+     * <p>A single task in the wheel. Doubles as a node in both the slot list and the list of its scope.</p>
+     *
+     * @author Ocelot
+     */
+    public static class Timer implements ScheduledTask
+    {
+        private final Runnable task;
+        private final long period;
+        private long deadline;
+        private Timer prev;
+        private Timer next;
+        private Timer scopePrev;
+        private Timer scopeNext;
+
+        private Timer(Runnable task, long period)
+        {
+            this.task = task;
+            this.period = period;
+        }
+
+        private static Timer sentinel()
+        {
+            Timer timer = new Timer(null, 0);
+            timer.prev = timer;
+            timer.next = timer;
+            timer.scopePrev = timer;
+            timer.scopeNext = timer;
+            return timer;
+        }
+
+        private void link(Timer timer)
+        {
+            timer.prev = this.prev;
+            timer.next = this;
+            this.prev.next = timer;
+            this.prev = timer;
+        }
+
+        private void unlink()
+        {
+            if (this.next == null)
+                return;
+            this.prev.next = this.next;
+            this.next.prev = this.prev;
+            this.prev = null;
+            this.next = null;
+        }
+
+        private void linkScope(Timer timer)
+        {
+            timer.scopePrev = this.scopePrev;
+            timer.scopeNext = this;
+            this.scopePrev.scopeNext = timer;
+            this.scopePrev = timer;
+        }
+
+        private void unlinkScope()
+        {
+            if (this.scopeNext == null)
+                return;
+            this.scopePrev.scopeNext = this.scopeNext;
+            this.scopeNext.scopePrev = this.scopePrev;
+            this.scopePrev = null;
+            this.scopeNext = null;
+        }
+
+        private void spliceFrom(Timer slot)
+        {
+            // Move the whole list from the other sentinel onto the end of this one
+            Timer first = slot.next;
+            Timer last = slot.prev;
+            first.prev = this.prev;
+            this.prev.next = first;
+            last.next = this;
+            this.prev = last;
+            slot.next = slot;
+            slot.prev = slot;
+        }
+
+        @Override
+        public void cancel()
+        {
+            if (!Bukkit.isPrimaryThread())
+                throw new IllegalStateException("Minigame tasks can only be cancelled on the main thread");
+            this.unlink();
+            this.unlinkScope();
+        }
+
+        @Override
+        public boolean isScheduled()
+        {
+            return this.scopeNext != null;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package io.github.ocelot.ludum.core.world;
+
+import io.github.ocelot.ludum.core.profile.RollingHistogram;
+import io.github.ocelot.ludum.core.tick.TimerWheel;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.entity.Player;
+import org.bukkit.event.player.PlayerTeleportEvent;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * <p>Moves groups of players into a minigame world without flooding the chunk loader.</p>
+ * <p>The chunks around every join location are loaded and held with plugin tickets first, then players are teleported a few at a time with a delay between each wave.</p>
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public class AdmissionController
+{
+    private final Plugin plugin;
+    private final Executor mainExecutor;
+    private final TimerWheel timerWheel;
+    private final int waveSize;
+    private final int waveInterval;
+    private final int preloadRadius;
+    private final RollingHistogram preloadTimes;
+    private final RollingHistogram waveTimes;
+
+    public AdmissionController(Plugin plugin, Executor mainExecutor, TimerWheel timerWheel, ConfigurationSection config)
+    {
+        this.plugin = plugin;
+        this.mainExecutor = mainExecutor;
+        this.timerWheel = timerWheel;
+        this.waveSize = Math.max(1, config.getInt("wave-size", 4));
+        this.waveInterval = Math.max(1, config.getInt("wave-interval", 2));
+        this.preloadRadius = Math.max(0, config.getInt("preload-radius", 1));
+        this.preloadTimes = new RollingHistogram();
+        this.waveTimes = new RollingHistogram();
+    }
+
+    /**
+     * Preloads the chunks around each location and teleports the players there in waves. Must be called on the main thread.
+     *
+     * @param world     The world players are joining
+     * @param locations The location each player should be moved to
+     * @param onArrival Called on the main thread for each player once they are in the world
+     * @param active    Whether the game is still running. Waves stop once this returns <code>false</code>
+     * @return A future for the players that made it into the world
+     */
+    public CompletableFuture<List<Player>> admit(World world, Map<Player, Location> locations, Consumer<Player> onArrival, BooleanSupplier active)
+    {
+        if (locations.isEmpty())
+            return CompletableFuture.completedFuture(Collections.emptyList());
+
+        long[] chunks = this.getChunks(locations.values());
+        long start = System.nanoTime();
+        Batch batch = new Batch(world, chunks, locations, onArrival, active);
+        // A failed preload only means the teleport loads the chunk itself, so admission goes ahead either way
+        ChunkTickets.load(world, chunks, this.plugin).whenCompleteAsync((__, e) ->
+        {
+            this.preloadTimes.record(System.nanoTime() - start);
+            batch.wave();
+        }, this.mainExecutor);
+        return batch.result;
+    }
+
+    private long[] getChunks(Collection<Location> locations)
+    {
+        Set<Long> chunks = new LinkedHashSet<>();
+        for (Location location : locations)
+            for (long chunk : ChunkTickets.around(location.getBlockX() >> 4, location.getBlockZ() >> 4, this.preloadRadius))
+                chunks.add(chunk);
+        return chunks.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * @return The time taken to load the chunks around join locations before the first wave
+     */
+    public RollingHistogram getPreloadTimes()
+    {
+        return preloadTimes;
+    }
+
+    /**
+     * @return The time taken for every player in a wave to arrive
+     */
+    public RollingHistogram getWaveTimes()
+    {
+        return waveTimes;
+    }
+
+    private class Batch
+    {
+        private final World world;
+        private final long[] chunks;
+        private final Iterator<Map.Entry<Player, Location>> remaining;
+        private final Consumer<Player> onArrival;
+        private final BooleanSupplier active;
+        private final TimerWheel.Scope scope;
+        private final List<Player> admitted;
+        private final CompletableFuture<List<Player>> result;
+        private int pendingWaves;
+
+        private Batch(World world, long[] chunks, Map<Player, Location> locations, Consumer<Player> onArrival, BooleanSupplier active)
+        {
+            this.world = world;
+            this.chunks = chunks;
+            this.remaining = new ArrayList<>(locations.entrySet()).iterator();
+            this.onArrival = onArrival;
+            this.active = active;
+            this.scope = new TimerWheel.Scope();
+            this.admitted = new ArrayList<>();
+            this.result = new CompletableFuture<>();
+        }
+
+        private void wave()
+        {
+            if (!this.active.getAsBoolean())
+            {
+                while (this.remaining.hasNext())
+                    this.remaining.next();
+                this.finishIfDone();
+                return;
+            }
+
+            List<Player> players = new ArrayList<>(AdmissionController.this.waveSize);
+            List<CompletableFuture<Boolean>> teleports = new ArrayList<>(AdmissionController.this.waveSize);
+            while (players.size() < AdmissionController.this.waveSize && this.remaining.hasNext())
+            {
+                Map.Entry<Player, Location> entry = this.remaining.next();
+                Player player = entry.getKey();
+                if (!player.isOnline())
+                    continue;
+                players.add(player);
+                teleports.add(player.teleportAsync(entry.getValue(), PlayerTeleportEvent.TeleportCause.COMMAND));
+            }
+
+            // The next wave is paced by ticks rather than waiting on this one, so a slow teleport cannot stall the rest
+            if (this.remaining.hasNext())
+                AdmissionController.this.timerWheel.schedule(this.scope, AdmissionController.this.waveInterval, 0, this::wave);
+            if (players.isEmpty())
+            {
+                this.finishIfDone();
+                return;
+            }
+
+            long start = System.nanoTime();
+            this.pendingWaves++;
+            CompletableFuture.allOf(teleports.toArray(CompletableFuture[]::new)).whenCompleteAsync((__, e) ->
+            {
+                AdmissionController.this.waveTimes.record(System.nanoTime() - start);
+                this.pendingWaves--;
+                for (int i = 0; i < players.size(); i++)
+                {
+                    Player player = players.get(i);
+                    CompletableFuture<Boolean> teleport = teleports.get(i);
+                    if (!this.active.getAsBoolean() || teleport.isCompletedExceptionally() || !teleport.join() || !this.world.equals(player.getWorld()))
+                        continue;
+                    this.admitted.add(player);
+                    try
+                    {
+                        this.onArrival.accept(player);
+                    }
+                    catch (Throwable t)
+                    {
+                        Bukkit.getLogger().log(Level.SEVERE, "Failed to add " + player.getName() + " to " + this.world.getName(), t);
+                    }
+                }
+                this.finishIfDone();
+            }, AdmissionController.this.mainExecutor);
+        }
+
+        private void finishIfDone()
+        {
+            if (this.pendingWaves > 0 || this.remaining.hasNext() || this.result.isDone())
+                return;
+            ChunkTickets.release(this.world, this.chunks, AdmissionController.this.plugin);
+            this.result.complete(this.admitted);
+        }
+    }
+}
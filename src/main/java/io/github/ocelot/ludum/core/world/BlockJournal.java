@@ -0,0 +1,281 @@
+package io.github.ocelot.ludum.core.world;
+
+import io.github.ocelot.ludum.core.tick.TimerWheel;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.data.BlockData;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * <p>Remembers the original block of every position changed in a minigame world so the world can be put back without reloading it.</p>
+ * <p>Positions are packed into longs and kept in an open addressing table next to an index into a palette of the original block data, so each change costs twelve bytes instead of a location and block state. Only the first change to a position is recorded. Rolling back restores the recorded blocks in batches over several ticks, and changes made during a rollback are recorded for the next one.</p>
+ * <p>Block data is restored without physics. Inventories and other tile entity contents are not part of the journal.</p>
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public class BlockJournal
+{
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final TimerWheel timerWheel;
+    private final TimerWheel.Scope tasks;
+    private final int batchSize;
+    private Table table;
+    private Rollback rollback;
+
+    public BlockJournal(TimerWheel timerWheel, int batchSize)
+    {
+        this.timerWheel = timerWheel;
+        this.tasks = new TimerWheel.Scope();
+        this.batchSize = Math.max(1, batchSize);
+        this.table = new Table(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Records the current block at the position of the specified block. Must be called before the block changes.
+     *
+     * @param block The block about to change
+     */
+    public void record(Block block)
+    {
+        this.record(block.getX(), block.getY(), block.getZ(), block.getBlockData());
+    }
+
+    /**
+     * Records a block state captured before its block changed.
+     *
+     * @param state The state the block had before it changed
+     */
+    public void record(BlockState state)
+    {
+        this.record(state.getX(), state.getY(), state.getZ(), state.getBlockData());
+    }
+
+    /**
+     * Records the original block data at the specified position if it has not been recorded yet.
+     *
+     * @param x    The x position of the block
+     * @param y    The y position of the block
+     * @param z    The z position of the block
+     * @param data The block data the position had before it changed
+     */
+    public void record(int x, int y, int z, BlockData data)
+    {
+        long position = pack(x, y, z);
+        // Positions still waiting to be rolled back are going to be put back anyway
+        if (this.rollback != null && this.rollback.isPending(position))
+            return;
+        this.table.putIfAbsent(position, data);
+    }
+
+    /**
+     * Starts restoring every recorded block in the specified world. The journal is cleared right away so changes made while restoring are recorded again.
+     *
+     * @param world The world to restore
+     * @return A future for when every block has been restored, or the rollback already in progress
+     */
+    public CompletableFuture<Void> rollback(World world)
+    {
+        if (this.rollback != null)
+            return this.rollback.future;
+
+        Rollback rollback = new Rollback(world, this.table);
+        this.table = new Table(INITIAL_CAPACITY);
+        this.rollback = rollback;
+        if (!rollback.restore(this.batchSize))
+        {
+            this.timerWheel.schedule(this.tasks, 1, 1, () ->
+            {
+                if (rollback.restore(this.batchSize))
+                    this.finish(rollback);
+            });
+        }
+        else
+        {
+            this.finish(rollback);
+        }
+        return rollback.future;
+    }
+
+    private void finish(Rollback rollback)
+    {
+        this.tasks.cancelAll();
+        this.rollback = null;
+        rollback.future.complete(null);
+    }
+
+    /**
+     * Stops any rollback in progress. Used when the world is about to be unloaded.
+     */
+    public void cancel()
+    {
+        this.tasks.cancelAll();
+        if (this.rollback != null)
+        {
+            this.rollback.future.cancel(false);
+            this.rollback = null;
+        }
+    }
+
+    /**
+     * @return The number of positions recorded since the last rollback
+     */
+    public int size()
+    {
+        return this.table.size;
+    }
+
+    /**
+     * @return Whether a rollback is in progress
+     */
+    public boolean isRollingBack()
+    {
+        return this.rollback != null;
+    }
+
+    private static long pack(int x, int y, int z)
+    {
+        return ((long) x & 0x3FFFFFF) << 38 | ((long) z & 0x3FFFFFF) << 12 | (long) y & 0xFFF;
+    }
+
+    private static int unpackX(long position)
+    {
+        return (int) (position >> 38);
+    }
+
+    private static int unpackY(long position)
+    {
+        return (int) (position << 52 >> 52);
+    }
+
+    private static int unpackZ(long position)
+    {
+        return (int) (position << 26 >> 38);
+    }
+
+    private static int hash(long position)
+    {
+        long hash = position * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ hash >>> 32);
+    }
+
+    /**
+     * <p>An open addressing table from packed positions to palette indices.</p>
+     *
+     * @author Ocelot
+     */
+    private static class Table
+    {
+        private final List<BlockData> palette;
+        private final Map<BlockData, Integer> paletteIds;
+        private long[] positions;
+        private int[] states;
+        private int size;
+
+        private Table(int capacity)
+        {
+            this.palette = new ArrayList<>();
+            this.paletteIds = new HashMap<>();
+            this.positions = new long[capacity];
+            this.states = new int[capacity];
+            Arrays.fill(this.positions, EMPTY);
+        }
+
+        private int find(long position)
+        {
+            int mask = this.positions.length - 1;
+            int slot = hash(position) & mask;
+            while (this.positions[slot] != EMPTY && this.positions[slot] != position)
+                slot = (slot + 1) & mask;
+            return slot;
+        }
+
+        private void putIfAbsent(long position, BlockData data)
+        {
+            int slot = this.find(position);
+            if (this.positions[slot] == position)
+                return;
+
+            Integer id = this.paletteIds.get(data);
+            if (id == null)
+            {
+                // Copied so later changes to the event's block data cannot change what is restored
+                BlockData copy = data.clone();
+                id = this.palette.size();
+                this.palette.add(copy);
+                this.paletteIds.put(copy, id);
+            }
+            this.positions[slot] = position;
+            this.states[slot] = id;
+            // Kept at most three quarters full so probes stay short
+            if (++this.size * 4 >= this.positions.length * 3)
+                this.grow();
+        }
+
+        private void grow()
+        {
+            long[] positions = this.positions;
+            int[] states = this.states;
+            this.positions = new long[positions.length * 2];
+            this.states = new int[states.length * 2];
+            Arrays.fill(this.positions, EMPTY);
+            for (int i = 0; i < positions.length; i++)
+            {
+                if (positions[i] == EMPTY)
+                    continue;
+                int slot = this.find(positions[i]);
+                this.positions[slot] = positions[i];
+                this.states[slot] = states[i];
+            }
+        }
+    }
+
+    /**
+     * <p>Restores a detached table a batch at a time, walking its slots in order.</p>
+     *
+     * @author Ocelot
+     */
+    private static class Rollback
+    {
+        private final World world;
+        private final Table table;
+        private final CompletableFuture<Void> future;
+        private int cursor;
+
+        private Rollback(World world, Table table)
+        {
+            this.world = world;
+            this.table = table;
+            this.future = new CompletableFuture<>();
+        }
+
+        private boolean isPending(long position)
+        {
+            int slot = this.table.find(position);
+            return this.table.positions[slot] == position && slot >= this.cursor;
+        }
+
+        private boolean restore(int batchSize)
+        {
+            long[] positions = this.table.positions;
+            int restored = 0;
+            while (this.cursor < positions.length && restored < batchSize)
+            {
+                long position = positions[this.cursor];
+                if (position != EMPTY)
+                {
+                    this.world.getBlockAt(unpackX(position), unpackY(position), unpackZ(position)).setBlockData(this.table.palette.get(this.table.states[this.cursor]), false);
+                    restored++;
+                }
+                this.cursor++;
+            }
+            return this.cursor >= positions.length;
+        }
+    }
+}
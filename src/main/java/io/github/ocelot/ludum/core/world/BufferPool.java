@@ -0,0 +1,57 @@
+package io.github.ocelot.ludum.core.world;
+
+import org.jetbrains.annotations.ApiStatus;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>Shares large direct buffers between file operations so they are not allocated for every file.</p>
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public class BufferPool
+{
+    private final Queue<ByteBuffer> buffers;
+    private final AtomicInteger pooled;
+    private final int bufferSize;
+    private final int maxPooled;
+
+    public BufferPool(int bufferSize, int maxPooled)
+    {
+        this.buffers = new ConcurrentLinkedQueue<>();
+        this.pooled = new AtomicInteger();
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+    }
+
+    /**
+     * @return A cleared buffer that must be returned with {@link #release(ByteBuffer)}
+     */
+    public ByteBuffer acquire()
+    {
+        ByteBuffer buffer = this.buffers.poll();
+        if (buffer == null)
+            return ByteBuffer.allocateDirect(this.bufferSize);
+        this.pooled.decrementAndGet();
+        return buffer.clear();
+    }
+
+    /**
+     * Returns a buffer to the pool so it can be used again.
+     *
+     * @param buffer The buffer to return
+     */
+    public void release(ByteBuffer buffer)
+    {
+        if (this.pooled.incrementAndGet() > this.maxPooled)
+        {
+            this.pooled.decrementAndGet();
+            return;
+        }
+        this.buffers.offer(buffer);
+    }
+}
@@ -0,0 +1,122 @@
+package io.github.ocelot.ludum.core.world;
+
+import org.bukkit.World;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * <p>Loads square areas of chunks asynchronously and keeps them loaded with plugin chunk tickets.</p>
+ * <p>Chunks are packed into longs with the x coordinate in the upper 32 bits and the z coordinate in the lower 32 bits.</p>
+ * <p>Bukkit only keeps a single ticket per plugin and chunk, so a single removal would unpin a chunk that something else still needs. Tickets are counted per world and chunk instead, and only added for the first holder and removed with the last. Every {@link #load(World, long[], Plugin)} must be matched by exactly one {@link #release(World, long[], Plugin)} with the same chunks.</p>
+ * <p>Counts are kept by world id so they never keep a world loaded, and are dropped with {@link #forget(World)} when the world unloads and takes its tickets with it.</p>
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public final class ChunkTickets
+{
+    private static final Map<UUID, Map<Long, Integer>> HOLDERS = new HashMap<>();
+
+    private ChunkTickets()
+    {
+    }
+
+    /**
+     * Packs the specified chunk position into a single long.
+     *
+     * @param x The x position of the chunk
+     * @param z The z position of the chunk
+     * @return The packed position
+     */
+    public static long pack(int x, int z)
+    {
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Collects every chunk in the square around the specified chunk.
+     *
+     * @param chunkX The x position of the center chunk
+     * @param chunkZ The z position of the center chunk
+     * @param radius The number of chunks on each side of the center
+     * @return The packed position of every chunk in the square
+     */
+    public static long[] around(int chunkX, int chunkZ, int radius)
+    {
+        int size = radius * 2 + 1;
+        long[] chunks = new long[size * size];
+        int i = 0;
+        for (int x = -radius; x <= radius; x++)
+            for (int z = -radius; z <= radius; z++)
+                chunks[i++] = pack(chunkX + x, chunkZ + z);
+        return chunks;
+    }
+
+    /**
+     * Holds a ticket on every chunk and starts loading them. Must be called on the main thread.
+     *
+     * @param world  The world to load chunks in
+     * @param chunks The packed chunk positions
+     * @param plugin The plugin holding the tickets
+     * @return A future for when every chunk has loaded
+     */
+    public static CompletableFuture<Void> load(World world, long[] chunks, Plugin plugin)
+    {
+        Map<Long, Integer> counts = HOLDERS.computeIfAbsent(world.getUID(), __ -> new HashMap<>());
+        CompletableFuture<?>[] loads = new CompletableFuture<?>[chunks.length];
+        for (int i = 0; i < chunks.length; i++)
+        {
+            int x = (int) (chunks[i] >> 32);
+            int z = (int) chunks[i];
+            if (counts.merge(chunks[i], 1, Integer::sum) == 1)
+                world.addPluginChunkTicket(x, z, plugin);
+            loads[i] = world.getChunkAtAsync(x, z);
+        }
+        return CompletableFuture.allOf(loads);
+    }
+
+    /**
+     * Lets go of the tickets held by {@link #load(World, long[], Plugin)}. A ticket is only removed once nothing else holds the chunk. Must be called on the main thread.
+     *
+     * @param world  The world chunks were loaded in
+     * @param chunks The packed chunk positions
+     * @param plugin The plugin holding the tickets
+     */
+    public static void release(World world, long[] chunks, Plugin plugin)
+    {
+        Map<Long, Integer> counts = HOLDERS.get(world.getUID());
+        if (counts == null)
+            return;
+
+        for (long chunk : chunks)
+        {
+            Integer count = counts.get(chunk);
+            if (count == null)
+                continue;
+            if (count > 1)
+            {
+                counts.put(chunk, count - 1);
+                continue;
+            }
+            counts.remove(chunk);
+            world.removePluginChunkTicket((int) (chunk >> 32), (int) chunk, plugin);
+        }
+        if (counts.isEmpty())
+            HOLDERS.remove(world.getUID());
+    }
+
+    /**
+     * Drops every count held in the specified world. Bukkit removes all tickets of a world when it unloads, so this must be called then for a world loaded again under the same id to start over. Must be called on the main thread.
+     *
+     * @param world The world that is unloading
+     */
+    public static void forget(World world)
+    {
+        HOLDERS.remove(world.getUID());
+    }
+}
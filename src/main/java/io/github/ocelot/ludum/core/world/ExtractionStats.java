@@ -0,0 +1,73 @@
+package io.github.ocelot.ludum.core.world;
+
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>The result of extracting a single world template.</p>
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public class ExtractionStats
+{
+    private final String template;
+    private final int files;
+    private final long bytes;
+    private final long nanos;
+
+    public ExtractionStats(String template, int files, long bytes, long nanos)
+    {
+        this.template = template;
+        this.files = files;
+        this.bytes = bytes;
+        this.nanos = nanos;
+    }
+
+    /**
+     * @return The name of the template extracted
+     */
+    public String getTemplate()
+    {
+        return template;
+    }
+
+    /**
+     * @return The number of files written
+     */
+    public int getFiles()
+    {
+        return files;
+    }
+
+    /**
+     * @return The number of uncompressed bytes written
+     */
+    public long getBytes()
+    {
+        return bytes;
+    }
+
+    /**
+     * @return The time taken in nanoseconds
+     */
+    public long getNanos()
+    {
+        return nanos;
+    }
+
+    /**
+     * @return The extraction speed in MiB per second
+     */
+    public double getThroughput()
+    {
+        return this.nanos > 0 ? (this.bytes / 1048576.0) / (this.nanos / 1_000_000_000.0) : 0;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s: %d files, %.1f MiB in %d ms (%.1f MiB/s)", this.template, this.files, this.bytes / 1048576.0, TimeUnit.NANOSECONDS.toMillis(this.nanos), this.getThroughput());
+    }
+}
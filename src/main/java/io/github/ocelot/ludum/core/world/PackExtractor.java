@@ -0,0 +1,168 @@
+package io.github.ocelot.ludum.core.world;
+
+import io.github.ocelot.ludum.core.concurrent.ParallelTasks;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * <p>Extracts <code>.ludpack</code> templates straight into a world folder.</p>
+ * <p>Stored entries are transferred from the pack to the new file without passing through the JVM heap, and compressed entries are inflated from a memory mapped view of the pack into pooled direct buffers.</p>
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public class PackExtractor
+{
+    private final Executor executor;
+    private final int parallelism;
+    private final BufferPool buffers;
+    private final boolean verify;
+
+    public PackExtractor(Executor executor, int parallelism, BufferPool buffers, boolean verify)
+    {
+        this.executor = executor;
+        this.parallelism = Math.max(1, parallelism);
+        this.buffers = buffers;
+        this.verify = verify;
+    }
+
+    /**
+     * Extracts the entries of the specified pack that pass the filter into a folder.
+     *
+     * @param name   The name of the template being extracted
+     * @param pack   The pack file to read
+     * @param dst    The folder to extract into
+     * @param filter Whether each file should be extracted, given its path relative to the world folder
+     * @return The statistics for the extraction
+     * @throws IOException If any error occurs reading the pack or writing files
+     */
+    public ExtractionStats extract(String name, Path pack, Path dst, Predicate<String> filter) throws IOException
+    {
+        long start = System.nanoTime();
+        LongAdder bytes = new LongAdder();
+        try (FileChannel channel = FileChannel.open(pack, StandardOpenOption.READ))
+        {
+            List<TemplatePack.Entry> files = new ArrayList<>();
+            for (TemplatePack.Entry entry : TemplatePack.readIndex(channel))
+            {
+                Path path = ZipExtractor.resolveEntry(dst, entry.getName());
+                if (entry.getMethod() == TemplatePack.DIRECTORY)
+                {
+                    Files.createDirectories(path);
+                }
+                else if (filter.test(entry.getName()))
+                {
+                    Files.createDirectories(path.getParent());
+                    files.add(entry);
+                }
+            }
+
+            // Start with the largest entries so one big region file does not finish last on its own
+            files.sort(Comparator.comparingLong(TemplatePack.Entry::getSize).reversed());
+            ParallelTasks.forEach(this.executor, this.parallelism, files, entry -> bytes.add(this.extractEntry(channel, entry, ZipExtractor.resolveEntry(dst, entry.getName()))));
+            return new ExtractionStats(name, files.size(), bytes.sum(), System.nanoTime() - start);
+        }
+    }
+
+    private long extractEntry(FileChannel pack, TemplatePack.Entry entry, Path target) throws IOException
+    {
+        try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE))
+        {
+            if (entry.getMethod() == TemplatePack.STORED)
+                return this.transfer(pack, entry, out);
+            if (entry.getMethod() == TemplatePack.DEFLATED)
+                return this.inflate(pack, entry, out);
+            throw new IOException("Unknown storage method " + entry.getMethod() + " for " + entry.getName());
+        }
+    }
+
+    private long transfer(FileChannel pack, TemplatePack.Entry entry, FileChannel out) throws IOException
+    {
+        if (this.verify)
+        {
+            CRC32 crc = new CRC32();
+            crc.update(pack.map(FileChannel.MapMode.READ_ONLY, entry.getOffset(), entry.getStoredSize()));
+            checkCrc(entry, crc);
+        }
+
+        long written = 0;
+        while (written < entry.getSize())
+        {
+            long transferred = pack.transferTo(entry.getOffset() + written, entry.getSize() - written, out);
+            if (transferred <= 0)
+                throw new IOException("Template pack ended early in " + entry.getName());
+            written += transferred;
+        }
+        return written;
+    }
+
+    private long inflate(FileChannel pack, TemplatePack.Entry entry, FileChannel out) throws IOException
+    {
+        Inflater inflater = new Inflater();
+        ByteBuffer buffer = this.buffers.acquire();
+        CRC32 crc = new CRC32();
+        long written = 0;
+        try
+        {
+            inflater.setInput(pack.map(FileChannel.MapMode.READ_ONLY, entry.getOffset(), entry.getStoredSize()));
+            while (!inflater.finished())
+            {
+                if (inflater.inflate(buffer) == 0)
+                {
+                    if (inflater.needsInput() || inflater.needsDictionary())
+                        throw new IOException("Template pack entry is truncated: " + entry.getName());
+                }
+                if (!buffer.hasRemaining())
+                    written += flush(buffer, out, crc);
+            }
+            written += flush(buffer, out, crc);
+        }
+        catch (DataFormatException e)
+        {
+            throw new IOException("Template pack entry is corrupt: " + entry.getName(), e);
+        }
+        finally
+        {
+            inflater.end();
+            this.buffers.release(buffer);
+        }
+
+        if (written != entry.getSize())
+            throw new IOException("Template pack entry has the wrong size: " + entry.getName());
+        if (this.verify)
+            checkCrc(entry, crc);
+        return written;
+    }
+
+    private static long flush(ByteBuffer buffer, FileChannel out, CRC32 crc) throws IOException
+    {
+        buffer.flip();
+        crc.update(buffer.duplicate());
+        long written = 0;
+        while (buffer.hasRemaining())
+            written += out.write(buffer);
+        buffer.clear();
+        return written;
+    }
+
+    private static void checkCrc(TemplatePack.Entry entry, CRC32 crc) throws IOException
+    {
+        if ((int) crc.getValue() != entry.getCrc())
+            throw new IOException("Template pack entry failed its checksum: " + entry.getName());
+    }
+}
@@ -0,0 +1,257 @@
+package io.github.ocelot.ludum.core.world;
+
+import io.github.ocelot.ludum.api.StartPriority;
+import io.github.ocelot.ludum.api.metrics.MetricRegistry;
+import io.github.ocelot.ludum.core.tick.MainThreadQueue;
+import org.bukkit.configuration.ConfigurationSection;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * <p>Limits how many worlds are extracted at once and how many are created each tick.</p>
+ * <p>Starts wait in a queue for each step, ordered by {@link StartPriority} and then by when they were queued, so a start a player is waiting on always goes before worlds prepared ahead of time. Named starts can be looked up for their queue position and cancelled while they are still waiting.</p>
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public class StartCoordinator
+{
+    private static final Comparator<Ticket<?>> ORDER = Comparator.<Ticket<?>>comparingInt(ticket -> ticket.priority.ordinal()).thenComparingLong(ticket -> ticket.sequence);
+
+    private final PriorityQueue<Ticket<?>> extractions;
+    private final PriorityQueue<Ticket<?>> creations;
+    private final Map<String, Ticket<?>> named;
+    private final BooleanSupplier saturated;
+    private final MainThreadQueue mainQueue;
+    private final int maxExtractions;
+    private final int creationsPerTick;
+    private int activeExtractions;
+    private long sequence;
+
+    public StartCoordinator(BooleanSupplier saturated, MainThreadQueue mainQueue, MetricRegistry metrics, ConfigurationSection config)
+    {
+        this.extractions = new PriorityQueue<>(ORDER);
+        this.creations = new PriorityQueue<>(ORDER);
+        this.named = new HashMap<>();
+        this.saturated = saturated;
+        this.mainQueue = mainQueue;
+        this.maxExtractions = Math.max(1, config.getInt("max-extractions", 2));
+        this.creationsPerTick = Math.max(1, config.getInt("creations-per-tick", 1));
+        metrics.gauge("ludum_start_queue_size", "Starts waiting for their turn", () -> this.getQueueSize(this.extractions), "stage", "extract");
+        metrics.gauge("ludum_start_queue_size", "Starts waiting for their turn", () -> this.getQueueSize(this.creations), "stage", "create");
+        metrics.gauge("ludum_extractions_active", "Worlds being extracted for a start", this::getActiveExtractions);
+    }
+
+    /**
+     * Queues the extraction of a world. The task is started as soon as fewer than the configured number of extractions are running and the disk is not saturated.
+     *
+     * @param name     The name of the game being started or <code>null</code> if the world is not for a specific game
+     * @param priority How urgent the start is
+     * @param task     Starts the extraction and returns a future for when it finishes
+     * @param <T>      The type of value the extraction produces
+     * @return A future for the result of the extraction
+     */
+    public <T> CompletableFuture<T> extract(@Nullable String name, StartPriority priority, Supplier<CompletableFuture<T>> task)
+    {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Ticket<T> ticket = new Ticket<>(name, priority, future, () ->
+        {
+            CompletableFuture<T> result;
+            try
+            {
+                result = task.get();
+            }
+            catch (Throwable t)
+            {
+                result = CompletableFuture.failedFuture(t);
+            }
+            result.whenComplete((value, e) ->
+            {
+                synchronized (this)
+                {
+                    this.activeExtractions--;
+                }
+                if (e != null)
+                    future.completeExceptionally(e);
+                else
+                    future.complete(value);
+            });
+        });
+
+        List<Ticket<?>> ready;
+        synchronized (this)
+        {
+            this.queue(this.extractions, ticket);
+            // Starting right away when there is room means an idle server reports no queue at all
+            ready = this.pollExtractions();
+        }
+        ready.forEach(Ticket::run);
+        return future;
+    }
+
+    /**
+     * Queues the creation of a world on the main thread. The task is handed to the main thread queue in a later {@link #tick()} once creations with a higher priority have had their turn.
+     *
+     * @param name     The name of the game being started or <code>null</code> if the world is not for a specific game
+     * @param priority How urgent the start is
+     * @param task     Creates the world
+     * @param <T>      The type of value the creation produces
+     * @return A future for the result of the creation
+     */
+    public <T> CompletableFuture<T> create(@Nullable String name, StartPriority priority, Supplier<T> task)
+    {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Ticket<T> ticket = new Ticket<>(name, priority, future, () -> this.mainQueue.submit("create-world", task).whenComplete((value, e) ->
+        {
+            if (e != null)
+                future.completeExceptionally(e);
+            else
+                future.complete(value);
+        }));
+        synchronized (this)
+        {
+            this.queue(this.creations, ticket);
+        }
+        return future;
+    }
+
+    /**
+     * Starts every queued extraction there is room for and hands the next worlds to the main thread queue to be created. Must be called on the main thread.
+     */
+    public void tick()
+    {
+        List<Ticket<?>> ready;
+        synchronized (this)
+        {
+            ready = this.pollExtractions();
+            for (int i = 0; i < this.creationsPerTick && !this.creations.isEmpty(); i++)
+                ready.add(this.dequeue(this.creations.poll()));
+        }
+        // Tasks run outside the lock so their callbacks can queue the next step right away
+        ready.forEach(Ticket::run);
+    }
+
+    /**
+     * Cancels the specified start if it is still waiting for its turn.
+     *
+     * @param name The name of the game being started
+     * @return Whether a waiting start was found and cancelled
+     */
+    public boolean cancel(String name)
+    {
+        Ticket<?> ticket;
+        synchronized (this)
+        {
+            ticket = this.named.remove(name);
+            if (ticket == null)
+                return false;
+            this.extractions.remove(ticket);
+            this.creations.remove(ticket);
+        }
+        ticket.future.completeExceptionally(new CancellationException("Start of " + name + " was cancelled"));
+        return true;
+    }
+
+    /**
+     * Cancels every waiting start.
+     */
+    public void clear()
+    {
+        List<Ticket<?>> tickets;
+        synchronized (this)
+        {
+            tickets = new ArrayList<>(this.extractions);
+            tickets.addAll(this.creations);
+            this.extractions.clear();
+            this.creations.clear();
+            this.named.clear();
+        }
+        tickets.forEach(ticket -> ticket.future.completeExceptionally(new CancellationException("Start was cancelled")));
+    }
+
+    /**
+     * Finds where the specified start is in the queue for its current step.
+     *
+     * @param name The name of the game being started
+     * @return The position of that start counting from <code>1</code>, or <code>0</code> if it is not waiting
+     */
+    public synchronized int getPosition(String name)
+    {
+        Ticket<?> ticket = this.named.get(name);
+        if (ticket == null)
+            return 0;
+        PriorityQueue<Ticket<?>> queue = this.extractions.contains(ticket) ? this.extractions : this.creations;
+        int position = 1;
+        for (Ticket<?> other : queue)
+            if (ORDER.compare(other, ticket) < 0)
+                position++;
+        return position;
+    }
+
+    /**
+     * @return The number of extractions currently running
+     */
+    public synchronized int getActiveExtractions()
+    {
+        return activeExtractions;
+    }
+
+    private synchronized int getQueueSize(PriorityQueue<Ticket<?>> queue)
+    {
+        return queue.size();
+    }
+
+    private void queue(PriorityQueue<Ticket<?>> queue, Ticket<?> ticket)
+    {
+        ticket.sequence = this.sequence++;
+        queue.add(ticket);
+        if (ticket.name != null)
+            this.named.put(ticket.name, ticket);
+    }
+
+    private Ticket<?> dequeue(Ticket<?> ticket)
+    {
+        if (ticket.name != null)
+            this.named.remove(ticket.name, ticket);
+        return ticket;
+    }
+
+    private List<Ticket<?>> pollExtractions()
+    {
+        List<Ticket<?>> ready = new ArrayList<>();
+        while (!this.extractions.isEmpty() && this.activeExtractions < this.maxExtractions && !this.saturated.getAsBoolean())
+        {
+            this.activeExtractions++;
+            ready.add(this.dequeue(this.extractions.poll()));
+        }
+        return ready;
+    }
+
+    private static class Ticket<T>
+    {
+        private final String name;
+        private final StartPriority priority;
+        private final CompletableFuture<T> future;
+        private final Runnable task;
+        private long sequence;
+
+        private Ticket(@Nullable String name, StartPriority priority, CompletableFuture<T> future, Runnable task)
+        {
+            this.name = name;
+            this.priority = priority;
+            this.future = future;
+            this.task = task;
+        }
+
+        private void run()
+        {
+            this.task.run();
+        }
+    }
+}
@@ -0,0 +1,393 @@
+package io.github.ocelot.ludum.core.world;
+
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.ConfigurationSection;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * <p>Unpacks each world template once and creates new worlds by cloning the unpacked copy.</p>
+ * <p>Files that are never modified in place are hard linked, region files are cloned with copy-on-write when the file system supports it and everything else is copied.</p>
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public class TemplateCache
+{
+    private static final Set<String> SKIPPED_FILES = Set.of("uid.dat", "session.lock");
+    private static final long REFLINK_TIMEOUT = 10;
+
+    private final Path templatesFolder;
+    private final Path cacheFolder;
+    private final Set<String> hardLinkedFiles;
+    private final Map<String, ReadWriteLock> locks;
+    private final Map<String, ExtractionStats> extractionStats;
+    private final ZipExtractor extractor;
+    private final PackExtractor packExtractor;
+    private volatile boolean reflink;
+    private volatile boolean reflinkProbed;
+
+    public TemplateCache(Path templatesFolder, Path cacheFolder, Executor executor, ConfigurationSection config)
+    {
+        this.templatesFolder = templatesFolder;
+        this.cacheFolder = cacheFolder;
+        this.hardLinkedFiles = Set.copyOf(config.getStringList("hard-link"));
+        this.locks = new ConcurrentHashMap<>();
+        this.extractionStats = new ConcurrentHashMap<>();
+        BufferPool buffers = new BufferPool(config.getInt("buffer-size", 1024) * 1024, config.getInt("extraction-threads", 4) * 2);
+        this.extractor = new ZipExtractor(executor, config.getInt("extraction-threads", 4), buffers);
+        this.packExtractor = new PackExtractor(executor, config.getInt("extraction-threads", 4), buffers, config.getBoolean("verify-checksums", true));
+        this.reflink = config.getBoolean("reflink", true);
+    }
+
+    /**
+     * Creates a new world from the specified template.
+     * <p>Templates are looked up as a <code>.ludpack</code> first, then a folder and finally a <code>.zip</code>.</p>
+     *
+     * @param name The name of the template in the minigames folder
+     * @param dst  The folder to create the world in
+     * @return The number of bytes in the files created, including ones that were linked instead of copied
+     * @throws IOException If any error occurs creating the world
+     */
+    public long copy(String name, Path dst) throws IOException
+    {
+        Path pack = this.templatesFolder.resolve(name + TemplatePack.EXTENSION);
+        if (Files.isRegularFile(pack))
+        {
+            // Packs can be read in parallel directly, so they skip the cache and only extract what the world needs
+            ExtractionStats stats = this.packExtractor.extract(name, pack, dst, entry -> !SKIPPED_FILES.contains(entry.substring(entry.lastIndexOf('/') + 1)));
+            this.extractionStats.put(name, stats);
+            return stats.getBytes();
+        }
+
+        Path src = this.templatesFolder.resolve(name);
+        if (Files.isDirectory(src))
+            return this.clone(src, dst);
+
+        long[] bytes = new long[1];
+        this.withCache(name, cache -> bytes[0] = this.clone(cache, dst));
+        return bytes[0];
+    }
+
+    /**
+     * Records the files of a world that was just created from a template so it can be {@link #restore(String, Path, WorldManifest) restored} later.
+     *
+     * @param dst The world folder
+     * @return The manifest of that folder
+     * @throws IOException If the folder cannot be read
+     */
+    public WorldManifest capture(Path dst) throws IOException
+    {
+        return WorldManifest.capture(dst, SKIPPED_FILES);
+    }
+
+    /**
+     * Resets a world created from the specified template in place. Only files that changed since the manifest was captured are copied from the template again and files the game added are deleted.
+     *
+     * @param name     The name of the template in the minigames folder
+     * @param dst      The world folder to reset
+     * @param manifest The manifest captured when the world was created
+     * @return A new manifest for the restored folder
+     * @throws IOException If any error occurs restoring the world
+     */
+    public WorldManifest restore(String name, Path dst, WorldManifest manifest) throws IOException
+    {
+        Set<String> changed = manifest.findChanges(dst, SKIPPED_FILES);
+        if (!changed.isEmpty())
+        {
+            for (String file : changed)
+                Files.deleteIfExists(ZipExtractor.resolveEntry(dst, file));
+
+            Path pack = this.templatesFolder.resolve(name + TemplatePack.EXTENSION);
+            Path src = this.templatesFolder.resolve(name);
+            if (Files.isRegularFile(pack))
+                this.packExtractor.extract(name, pack, dst, changed::contains);
+            else if (Files.isDirectory(src))
+                this.copyFiles(src, dst, changed);
+            else
+                this.withCache(name, cache -> this.copyFiles(cache, dst, changed));
+        }
+        return this.capture(dst);
+    }
+
+    private void withCache(String name, CacheAction action) throws IOException
+    {
+        Path zip = this.templatesFolder.resolve(name + ".zip");
+        Path cache = this.cacheFolder.resolve(name);
+        ReadWriteLock lock = this.locks.computeIfAbsent(name, __ -> new ReentrantReadWriteLock());
+
+        lock.readLock().lock();
+        try
+        {
+            if (this.isValid(zip, cache))
+            {
+                action.run(cache);
+                return;
+            }
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+
+        lock.writeLock().lock();
+        try
+        {
+            if (!this.isValid(zip, cache))
+                this.extract(name, zip, cache);
+            lock.readLock().lock();
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+
+        try
+        {
+            action.run(cache);
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Converts the specified folder or zip template into a <code>.ludpack</code> next to it.
+     *
+     * @param name The name of the template in the minigames folder
+     * @return The pack file created
+     * @throws IOException If the template does not exist or cannot be converted
+     */
+    public Path convert(String name) throws IOException
+    {
+        Path src = this.templatesFolder.resolve(name);
+        if (!Files.isDirectory(src))
+            src = this.templatesFolder.resolve(name + ".zip");
+        if (!Files.isRegularFile(src) && !Files.isDirectory(src))
+            throw new NoSuchFileException("Unknown template: " + name);
+
+        Path pack = this.templatesFolder.resolve(name + TemplatePack.EXTENSION);
+        TemplatePack.convert(src, pack);
+        return pack;
+    }
+
+    /**
+     * @return The most recent extraction statistics for each template
+     */
+    public Map<String, ExtractionStats> getExtractionStats()
+    {
+        return Collections.unmodifiableMap(this.extractionStats);
+    }
+
+    private boolean isValid(Path zip, Path cache) throws IOException
+    {
+        Path stamp = getStamp(cache);
+        if (!Files.isDirectory(cache) || !Files.exists(stamp))
+            return false;
+        return Files.readString(stamp, StandardCharsets.UTF_8).equals(createStamp(zip));
+    }
+
+    private void extract(String name, Path zip, Path cache) throws IOException
+    {
+        Path stamp = getStamp(cache);
+        Path temp = cache.resolveSibling(cache.getFileName() + ".extracting");
+        Files.deleteIfExists(stamp);
+        WorldReaper.deleteRecursive(temp);
+        WorldReaper.deleteRecursive(cache);
+        Files.createDirectories(temp);
+
+        ExtractionStats stats = this.extractor.extract(name, zip, temp);
+        this.extractionStats.put(name, stats);
+        Bukkit.getLogger().info("Extracted template " + stats);
+
+        Files.move(temp, cache, StandardCopyOption.ATOMIC_MOVE);
+        Files.writeString(stamp, createStamp(zip), StandardCharsets.UTF_8);
+    }
+
+    private long clone(Path src, Path dst) throws IOException
+    {
+        boolean reflink = this.canReflink();
+        Map<Path, List<Path>> regionFiles = new HashMap<>();
+        long[] bytes = new long[1];
+        Files.walkFileTree(src, new SimpleFileVisitor<>()
+        {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException
+            {
+                Files.createDirectories(dst.resolve(src.relativize(dir).toString()));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException
+            {
+                String fileName = file.getFileName().toString();
+                if (SKIPPED_FILES.contains(fileName))
+                    return FileVisitResult.CONTINUE;
+
+                Path target = dst.resolve(src.relativize(file).toString());
+                bytes[0] += attrs.size();
+                if (TemplateCache.this.hardLinkedFiles.contains(fileName))
+                {
+                    link(file, target);
+                }
+                else if (reflink && fileName.endsWith(".mca"))
+                {
+                    regionFiles.computeIfAbsent(target.getParent(), __ -> new ArrayList<>()).add(file);
+                }
+                else
+                {
+                    Files.copy(file, target);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        for (Map.Entry<Path, List<Path>> entry : regionFiles.entrySet())
+        {
+            if (this.reflink && reflink(entry.getValue(), entry.getKey()))
+                continue;
+
+            this.reflink = false;
+            for (Path file : entry.getValue())
+                Files.copy(file, entry.getKey().resolve(file.getFileName().toString()), StandardCopyOption.REPLACE_EXISTING);
+        }
+        return bytes[0];
+    }
+
+    private void copyFiles(Path src, Path dst, Set<String> files) throws IOException
+    {
+        for (String name : files)
+        {
+            Path file = ZipExtractor.resolveEntry(src, name);
+            if (!Files.isRegularFile(file))
+                continue;
+
+            Path target = ZipExtractor.resolveEntry(dst, name);
+            Files.createDirectories(target.getParent());
+            if (this.hardLinkedFiles.contains(file.getFileName().toString()))
+                link(file, target);
+            else
+                Files.copy(file, target);
+        }
+    }
+
+    private static void link(Path file, Path target) throws IOException
+    {
+        try
+        {
+            Files.createLink(target, file);
+        }
+        catch (UnsupportedOperationException | IOException e)
+        {
+            // Hard links are not possible across file systems
+            Files.copy(file, target);
+        }
+    }
+
+    private boolean canReflink()
+    {
+        // Probed on the first copy so the check runs on an IO thread instead of holding up enable
+        if (!this.reflinkProbed)
+        {
+            synchronized (this)
+            {
+                if (!this.reflinkProbed)
+                {
+                    this.reflink = this.reflink && isReflinkSupported(this.cacheFolder);
+                    this.reflinkProbed = true;
+                }
+            }
+        }
+        return this.reflink;
+    }
+
+    private static boolean reflink(List<Path> files, Path folder)
+    {
+        List<String> command = new ArrayList<>(files.size() + 3);
+        command.add("cp");
+        command.add("--reflink=always");
+        files.forEach(file -> command.add(file.toAbsolutePath().toString()));
+        command.add(folder.toAbsolutePath().toString());
+        try
+        {
+            Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+            if (!process.waitFor(REFLINK_TIMEOUT, TimeUnit.SECONDS))
+            {
+                process.destroyForcibly();
+                return false;
+            }
+            return process.exitValue() == 0;
+        }
+        catch (IOException e)
+        {
+            return false;
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static boolean isReflinkSupported(Path folder)
+    {
+        try
+        {
+            Files.createDirectories(folder);
+            Path probe = Files.createTempFile(folder, "reflink", ".probe");
+            Path clone = probe.resolveSibling(probe.getFileName() + ".clone");
+            try
+            {
+                Process process = new ProcessBuilder("cp", "--reflink=always", probe.toAbsolutePath().toString(), clone.toAbsolutePath().toString()).redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+                if (!process.waitFor(REFLINK_TIMEOUT, TimeUnit.SECONDS))
+                {
+                    process.destroyForcibly();
+                    return false;
+                }
+                return process.exitValue() == 0;
+            }
+            finally
+            {
+                Files.deleteIfExists(probe);
+                Files.deleteIfExists(clone);
+            }
+        }
+        catch (IOException e)
+        {
+            return false;
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @FunctionalInterface
+    private interface CacheAction
+    {
+        void run(Path cache) throws IOException;
+    }
+
+    private static Path getStamp(Path cache)
+    {
+        return cache.resolveSibling(cache.getFileName() + ".stamp");
+    }
+
+    private static String createStamp(Path zip) throws IOException
+    {
+        return Files.size(zip) + ":" + Files.getLastModifiedTime(zip).toMillis();
+    }
+}
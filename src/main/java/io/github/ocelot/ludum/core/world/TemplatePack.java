@@ -0,0 +1,328 @@
+package io.github.ocelot.ludum.core.world;
+
+import org.jetbrains.annotations.ApiStatus;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * <p>Reads and writes <code>.ludpack</code> world templates.</p>
+ * <p>A pack starts with a 16 byte header holding a magic number, the format version, the number of entries and the size of the index. The index follows right after with the name, storage method, offset, stored size, real size and CRC32 of every entry, so any entry can be found without reading the ones before it. Every file is its own compressed block, which lets entries be extracted in parallel straight from a memory mapped view of the pack.</p>
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public final class TemplatePack
+{
+    public static final String EXTENSION = ".ludpack";
+    public static final byte STORED = 0;
+    public static final byte DEFLATED = 1;
+    public static final byte DIRECTORY = 2;
+
+    private static final int MAGIC = 0x4C554450;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int ENTRY_SIZE = Short.BYTES + Byte.BYTES + Long.BYTES * 3 + Integer.BYTES;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private TemplatePack()
+    {
+    }
+
+    /**
+     * Reads the index of the specified pack.
+     *
+     * @param channel The open pack file
+     * @return Every entry in the pack
+     * @throws IOException If the pack is not valid
+     */
+    public static List<Entry> readIndex(FileChannel channel) throws IOException
+    {
+        long fileSize = channel.size();
+        if (fileSize < HEADER_SIZE)
+            throw new IOException("Template pack is truncated");
+
+        ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+        if (header.getInt() != MAGIC)
+            throw new IOException("Not a template pack");
+        int version = header.getInt();
+        if (version != VERSION)
+            throw new IOException("Unsupported template pack version: " + version);
+        int count = header.getInt();
+        int indexSize = header.getInt();
+        if (count < 0 || indexSize < 0 || HEADER_SIZE + (long) indexSize > fileSize)
+            throw new IOException("Template pack index is corrupt");
+
+        ByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, indexSize);
+        List<Entry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+        {
+            byte[] name = new byte[Short.toUnsignedInt(index.getShort())];
+            index.get(name);
+            Entry entry = new Entry(new String(name, StandardCharsets.UTF_8), index.get(), index.getLong(), index.getLong(), index.getLong(), index.getInt());
+            if (entry.offset < 0 || entry.storedSize < 0 || entry.offset + entry.storedSize > fileSize)
+                throw new IOException("Template pack entry is out of bounds: " + entry.name);
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    /**
+     * Converts a template folder or zip into a pack. The pack is written next to the destination first and moved into place once complete.
+     *
+     * @param src The template folder or zip file
+     * @param dst The pack file to create
+     * @throws IOException If the source cannot be read or the pack cannot be written
+     */
+    public static void convert(Path src, Path dst) throws IOException
+    {
+        Path temp = dst.resolveSibling(dst.getFileName() + ".tmp");
+        if (Files.isDirectory(src))
+        {
+            List<Source> sources = new ArrayList<>();
+            Files.walkFileTree(src, new SimpleFileVisitor<>()
+            {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs)
+                {
+                    if (!dir.equals(src))
+                        sources.add(new Source(getName(src, dir), null));
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
+                {
+                    sources.add(new Source(getName(src, file), () -> Files.newInputStream(file)));
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+            write(temp, sources);
+        }
+        else
+        {
+            try (ZipFile zip = new ZipFile(src.toFile()))
+            {
+                List<Source> sources = new ArrayList<>(zip.size());
+                Enumeration<? extends ZipEntry> entries = zip.entries();
+                while (entries.hasMoreElements())
+                {
+                    ZipEntry entry = entries.nextElement();
+                    String name = entry.getName().endsWith("/") ? entry.getName().substring(0, entry.getName().length() - 1) : entry.getName();
+                    sources.add(new Source(name, entry.isDirectory() ? null : () -> zip.getInputStream(entry)));
+                }
+                write(temp, sources);
+            }
+        }
+        Files.move(temp, dst, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void write(Path file, List<Source> sources) throws IOException
+    {
+        byte[][] names = new byte[sources.size()][];
+        int indexSize = 0;
+        for (int i = 0; i < names.length; i++)
+        {
+            names[i] = sources.get(i).name.getBytes(StandardCharsets.UTF_8);
+            if (names[i].length > 0xFFFF)
+                throw new IOException("Template entry name is too long: " + sources.get(i).name);
+            indexSize += names[i].length + ENTRY_SIZE;
+        }
+
+        Entry[] entries = new Entry[names.length];
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        byte[] input = new byte[BUFFER_SIZE];
+        ByteBuffer output = ByteBuffer.allocate(BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
+        {
+            // The index size is known up front, so data can be written straight after it and the index filled in at the end
+            long position = HEADER_SIZE + indexSize;
+            for (int i = 0; i < entries.length; i++)
+            {
+                Source source = sources.get(i);
+                if (source.open == null)
+                {
+                    entries[i] = new Entry(source.name, DIRECTORY, position, 0, 0, 0);
+                    continue;
+                }
+
+                CRC32 crc = new CRC32();
+                long size = 0;
+                channel.position(position);
+                deflater.reset();
+                try (InputStream in = source.open.open())
+                {
+                    int read;
+                    while ((read = in.read(input)) != -1)
+                    {
+                        crc.update(input, 0, read);
+                        size += read;
+                        deflater.setInput(input, 0, read);
+                        while (!deflater.needsInput())
+                            drain(deflater, output, channel);
+                    }
+                }
+                deflater.finish();
+                while (!deflater.finished())
+                    drain(deflater, output, channel);
+
+                long storedSize = channel.position() - position;
+                byte method = DEFLATED;
+                if (storedSize >= size)
+                {
+                    // Already compressed data is kept as is so it can be copied without inflating
+                    channel.truncate(position);
+                    channel.position(position);
+                    try (InputStream in = source.open.open())
+                    {
+                        int read;
+                        while ((read = in.read(input)) != -1)
+                        {
+                            ByteBuffer buffer = ByteBuffer.wrap(input, 0, read);
+                            while (buffer.hasRemaining())
+                                channel.write(buffer);
+                        }
+                    }
+                    storedSize = size;
+                    method = STORED;
+                }
+                entries[i] = new Entry(source.name, method, position, storedSize, size, (int) crc.getValue());
+                position += storedSize;
+            }
+
+            ByteBuffer index = ByteBuffer.allocate(HEADER_SIZE + indexSize);
+            index.putInt(MAGIC).putInt(VERSION).putInt(entries.length).putInt(indexSize);
+            for (int i = 0; i < entries.length; i++)
+            {
+                Entry entry = entries[i];
+                index.putShort((short) names[i].length).put(names[i]).put(entry.method).putLong(entry.offset).putLong(entry.storedSize).putLong(entry.size).putInt(entry.crc);
+            }
+            index.flip();
+            long offset = 0;
+            while (index.hasRemaining())
+                offset += channel.write(index, offset);
+            channel.force(true);
+        }
+        finally
+        {
+            deflater.end();
+        }
+    }
+
+    private static void drain(Deflater deflater, ByteBuffer output, FileChannel channel) throws IOException
+    {
+        output.clear();
+        deflater.deflate(output);
+        output.flip();
+        while (output.hasRemaining())
+            channel.write(output);
+    }
+
+    private static String getName(Path root, Path path)
+    {
+        return root.relativize(path).toString().replace(path.getFileSystem().getSeparator(), "/");
+    }
+
+    /**
+     * <p>A single file or folder in a pack.</p>
+     *
+     * @author Ocelot
+     */
+    public static class Entry
+    {
+        private final String name;
+        private final byte method;
+        private final long offset;
+        private final long storedSize;
+        private final long size;
+        private final int crc;
+
+        private Entry(String name, byte method, long offset, long storedSize, long size, int crc)
+        {
+            this.name = name;
+            this.method = method;
+            this.offset = offset;
+            this.storedSize = storedSize;
+            this.size = size;
+            this.crc = crc;
+        }
+
+        /**
+         * @return The path of this entry relative to the world folder, separated by <code>/</code>
+         */
+        public String getName()
+        {
+            return name;
+        }
+
+        /**
+         * @return How the data is stored, either {@link #STORED}, {@link #DEFLATED} or {@link #DIRECTORY}
+         */
+        public byte getMethod()
+        {
+            return method;
+        }
+
+        /**
+         * @return The position of the data in the pack
+         */
+        public long getOffset()
+        {
+            return offset;
+        }
+
+        /**
+         * @return The number of bytes the data takes up in the pack
+         */
+        public long getStoredSize()
+        {
+            return storedSize;
+        }
+
+        /**
+         * @return The number of bytes once extracted
+         */
+        public long getSize()
+        {
+            return size;
+        }
+
+        /**
+         * @return The CRC32 of the extracted data
+         */
+        public int getCrc()
+        {
+            return crc;
+        }
+    }
+
+    private static class Source
+    {
+        private final String name;
+        private final InputSupplier open;
+
+        private Source(String name, InputSupplier open)
+        {
+            this.name = name;
+            this.open = open;
+        }
+    }
+
+    @FunctionalInterface
+    private interface InputSupplier
+    {
+        InputStream open() throws IOException;
+    }
+}
@@ -0,0 +1,34 @@
+package io.github.ocelot.ludum.core.world;
+
+import org.bukkit.World;
+import org.bukkit.generator.ChunkGenerator;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.Random;
+
+/**
+ * <p>Generates empty chunks for anything outside a minigame template so exploring past the arena costs almost nothing.</p>
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public class VoidChunkGenerator extends ChunkGenerator
+{
+    public static final VoidChunkGenerator INSTANCE = new VoidChunkGenerator();
+
+    private VoidChunkGenerator()
+    {
+    }
+
+    @Override
+    public ChunkData generateChunkData(World world, Random random, int x, int z, BiomeGrid biome)
+    {
+        return this.createChunkData(world);
+    }
+
+    @Override
+    public boolean isParallelCapable()
+    {
+        return true;
+    }
+}
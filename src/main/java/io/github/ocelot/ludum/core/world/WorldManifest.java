@@ -0,0 +1,110 @@
+package io.github.ocelot.ludum.core.world;
+
+import org.jetbrains.annotations.ApiStatus;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+
+/**
+ * <p>The size and modification time of every file in a world folder right after it was created from a template.</p>
+ * <p>Comparing a folder against its manifest finds the files a game changed, so only those have to be restored to reset the world.</p>
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public class WorldManifest
+{
+    private final Map<String, FileState> files;
+
+    private WorldManifest(Map<String, FileState> files)
+    {
+        this.files = files;
+    }
+
+    /**
+     * Records the current state of every file in the specified folder.
+     *
+     * @param folder  The world folder
+     * @param ignored File names that are not part of the template
+     * @return A new manifest for that folder
+     * @throws IOException If the folder cannot be read
+     */
+    public static WorldManifest capture(Path folder, Set<String> ignored) throws IOException
+    {
+        Map<String, FileState> files = new HashMap<>();
+        walk(folder, ignored, (name, attrs) -> files.put(name, new FileState(attrs)));
+        return new WorldManifest(files);
+    }
+
+    /**
+     * Finds every file in the specified folder that no longer matches this manifest. Files that were not part of the manifest are deleted.
+     *
+     * @param folder  The world folder
+     * @param ignored File names that are not part of the template
+     * @return The names of files that were modified or deleted and have to be restored
+     * @throws IOException If the folder cannot be read
+     */
+    public Set<String> findChanges(Path folder, Set<String> ignored) throws IOException
+    {
+        Set<String> missing = new HashSet<>(this.files.keySet());
+        Set<String> changed = new HashSet<>();
+        List<Path> added = new ArrayList<>();
+        walk(folder, ignored, (name, attrs) ->
+        {
+            FileState state = this.files.get(name);
+            if (state == null)
+            {
+                added.add(folder.resolve(name));
+                return;
+            }
+            missing.remove(name);
+            if (!state.matches(attrs))
+                changed.add(name);
+        });
+
+        for (Path file : added)
+            Files.deleteIfExists(file);
+        changed.addAll(missing);
+        return changed;
+    }
+
+    private static void walk(Path folder, Set<String> ignored, FileConsumer consumer) throws IOException
+    {
+        Files.walkFileTree(folder, new SimpleFileVisitor<>()
+        {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
+            {
+                if (!ignored.contains(file.getFileName().toString()))
+                    consumer.accept(folder.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/"), attrs);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface FileConsumer
+    {
+        void accept(String name, BasicFileAttributes attrs);
+    }
+
+    private static class FileState
+    {
+        private final long size;
+        private final FileTime modified;
+
+        private FileState(BasicFileAttributes attrs)
+        {
+            this.size = attrs.size();
+            this.modified = attrs.lastModifiedTime();
+        }
+
+        private boolean matches(BasicFileAttributes attrs)
+        {
+            return this.size == attrs.size() && this.modified.equals(attrs.lastModifiedTime());
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package io.github.ocelot.ludum.core.world;
+
+import io.github.ocelot.ludum.Ludum;
+import io.github.ocelot.ludum.api.Minigame;
+import io.github.ocelot.ludum.api.MinigameManager;
+import io.github.ocelot.ludum.api.MinigameRegistry;
+import io.github.ocelot.ludum.api.StartPriority;
+import io.github.ocelot.ludum.api.WorldProfile;
+import io.github.ocelot.ludum.api.metrics.MetricRegistry;
+import org.bukkit.Bukkit;
+import org.bukkit.NamespacedKey;
+import org.bukkit.World;
+import org.bukkit.configuration.ConfigurationSection;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>Keeps worlds extracted ahead of time for every registered minigame so starting a game can claim one instantly.</p>
+ * <p>The pool is off unless it is enabled in the config, since it keeps a world on disk for every registered minigame whether it is played or not.</p>
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public class WorldPool
+{
+    private final MinigameManager manager;
+    private final Map<NamespacedKey, Pool> pools;
+    private final boolean enabled;
+    private final int minIdle;
+    private final int maxIdle;
+    private final boolean preloadWorlds;
+    private final int refillInterval;
+    private int ticks;
+    private volatile boolean closed;
+
+    public WorldPool(MinigameManager manager, ConfigurationSection config)
+    {
+        this.manager = manager;
+        this.pools = new ConcurrentHashMap<>();
+        this.enabled = config.getBoolean("enabled", false);
+        this.minIdle = Math.max(0, config.getInt("min-idle", 1));
+        this.maxIdle = Math.max(this.minIdle, config.getInt("max-idle", 3));
+        this.preloadWorlds = config.getBoolean("preload-worlds", false);
+        this.refillInterval = Math.max(1, config.getInt("refill-interval", 20));
+    }
+
+    /**
+     * Checks all registered minigames and prepares more worlds for any pool below its target size.
+     */
+    public void tick()
+    {
+        if (!this.enabled || this.closed || ++this.ticks < this.refillInterval)
+            return;
+        this.ticks = 0;
+
+        for (NamespacedKey key : MinigameRegistry.getKeys())
+        {
+            Pool pool = this.pools.computeIfAbsent(key, Pool::new);
+            int target = pool.updateTarget(this.minIdle, this.maxIdle);
+
+            // Pre-warming never adds to a disk queue that games waiting to start are already stuck behind
+            while (pool.idleCount.get() + pool.pending.get() < target && !Ludum.getInstance().getIoExecutor().isSaturated())
+            {
+                pool.pending.incrementAndGet();
+                this.refill(pool);
+            }
+            while (pool.idleCount.get() > target)
+            {
+                Slot slot = pool.poll();
+                if (slot == null)
+                    break;
+                this.manager.discardWorld(slot.getId(), slot.getWorld());
+            }
+        }
+    }
+
+    private void refill(Pool pool)
+    {
+        int id = this.manager.allocateId();
+        StartCoordinator coordinator = this.manager.getCoordinator();
+        CompletableFuture<World> future = coordinator.extract(null, StartPriority.PREWARM, () -> this.manager.loadWorld(pool.template, "mini" + id)).thenApply(__ -> null);
+        if (this.preloadWorlds)
+            future = future.thenCompose(__ -> coordinator.create(null, StartPriority.PREWARM, () -> this.manager.createWorld(id, pool.profile)));
+        future.whenComplete((world, e) ->
+        {
+            pool.pending.decrementAndGet();
+            if (e != null)
+            {
+                Bukkit.getLogger().warning("Failed to prepare pooled world for " + pool.key);
+                e.printStackTrace();
+                this.manager.discardWorld(id, null);
+                return;
+            }
+            if (this.closed)
+            {
+                this.manager.discardWorld(id, world);
+                return;
+            }
+            pool.idle.offer(new Slot(id, world));
+            pool.idleCount.incrementAndGet();
+        });
+    }
+
+    /**
+     * Claims a ready world for the specified minigame if one is available.
+     *
+     * @param key The minigame to claim a world for
+     * @return A prepared world or <code>null</code> if the pool is currently empty
+     */
+    @Nullable
+    public Slot claim(NamespacedKey key)
+    {
+        if (!this.enabled || this.closed)
+            return null;
+        Pool pool = this.pools.computeIfAbsent(key, Pool::new);
+        pool.claims.incrementAndGet();
+        return pool.poll();
+    }
+
+    /**
+     * @return The number of idle worlds ready for each minigame
+     */
+    public Map<NamespacedKey, Integer> getIdleCounts()
+    {
+        Map<NamespacedKey, Integer> counts = new HashMap<>();
+        this.pools.forEach((key, pool) -> counts.put(key, pool.idleCount.get()));
+        return counts;
+    }
+
+    /**
+     * Discards all idle worlds and stops refilling.
+     */
+    public void close()
+    {
+        this.closed = true;
+        this.pools.values().forEach(pool ->
+        {
+            Slot slot;
+            while ((slot = pool.poll()) != null)
+                this.manager.discardWorld(slot.getId(), slot.getWorld());
+        });
+        this.pools.clear();
+    }
+
+    private static class Pool
+    {
+        private final NamespacedKey key;
+        private final String template;
+        private final WorldProfile profile;
+        private final ConcurrentLinkedDeque<Slot> idle;
+        private final AtomicInteger idleCount;
+        private final AtomicInteger pending;
+        private final AtomicInteger claims;
+        private double demand;
+
+        private Pool(NamespacedKey key)
+        {
+            this.key = key;
+            Minigame prototype = MinigameRegistry.create(key);
+            this.template = prototype.getWorldName();
+            this.profile = prototype.getWorldProfile();
+            this.idle = new ConcurrentLinkedDeque<>();
+            this.idleCount = new AtomicInteger();
+            this.pending = new AtomicInteger();
+            this.claims = new AtomicInteger();
+            MetricRegistry metrics = Ludum.getInstance().getMetrics();
+            metrics.gauge("ludum_world_pool_idle", "Worlds ready to be claimed by a new game", this.idleCount::get, "minigame", key.toString());
+            metrics.gauge("ludum_world_pool_pending", "Worlds being prepared for the pool", this.pending::get, "minigame", key.toString());
+        }
+
+        private int updateTarget(int minIdle, int maxIdle)
+        {
+            // Decay previous demand so a burst of starts grows the pool only for a while
+            this.demand = this.demand * 0.75 + this.claims.getAndSet(0);
+            return Math.max(minIdle, Math.min(maxIdle, (int) Math.ceil(this.demand)));
+        }
+
+        @Nullable
+        private Slot poll()
+        {
+            Slot slot = this.idle.poll();
+            if (slot != null)
+                this.idleCount.decrementAndGet();
+            return slot;
+        }
+    }
+
+    /**
+     * <p>A world that has been extracted and optionally loaded ahead of time.</p>
+     *
+     * @author Ocelot
+     */
+    public static class Slot
+    {
+        private final int id;
+        private final World world;
+
+        private Slot(int id, @Nullable World world)
+        {
+            this.id = id;
+            this.world = world;
+        }
+
+        /**
+         * @return The instance id reserved for this world
+         */
+        public int getId()
+        {
+            return id;
+        }
+
+        /**
+         * @return The loaded world or <code>null</code> if the world has only been extracted
+         */
+        @Nullable
+        public World getWorld()
+        {
+            return world;
+        }
+    }
+}
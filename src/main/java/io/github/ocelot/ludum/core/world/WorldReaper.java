@@ -0,0 +1,341 @@
+package io.github.ocelot.ludum.core.world;
+
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.ConfigurationSection;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * <p>Deletes old world folders in the background.</p>
+ * <p>Folders are first renamed into a trash folder so their name can be used again right away, then removed a few files at a time by a limited number of background tasks.</p>
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public class WorldReaper
+{
+    private static final Pattern WORLD_FOLDER = Pattern.compile("mini\\d+");
+
+    private final Path trashFolder;
+    private final Executor executor;
+    private final Queue<Job> jobs;
+    private final AtomicInteger activeWorkers;
+    private final AtomicLong trashCount;
+    private final int parallelism;
+    private final int batchSize;
+
+    public WorldReaper(Path trashFolder, Executor executor, ConfigurationSection config)
+    {
+        this.trashFolder = trashFolder;
+        this.executor = executor;
+        this.jobs = new ConcurrentLinkedQueue<>();
+        this.activeWorkers = new AtomicInteger();
+        this.trashCount = new AtomicLong();
+        this.parallelism = Math.max(1, config.getInt("parallelism", 2));
+        this.batchSize = Math.max(1, config.getInt("batch-size", 256));
+    }
+
+    /**
+     * Moves all world folders left behind by a crash or shutdown into the trash and starts deleting everything in the trash.
+     *
+     * @param worldContainer The folder containing all worlds
+     */
+    public void sweep(Path worldContainer)
+    {
+        try
+        {
+            if (Files.isDirectory(this.trashFolder))
+            {
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.trashFolder))
+                {
+                    for (Path folder : stream)
+                        this.jobs.offer(new Job(folder));
+                }
+            }
+            if (Files.isDirectory(worldContainer))
+            {
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(worldContainer, path -> Files.isDirectory(path) && WORLD_FOLDER.matcher(path.getFileName().toString()).matches()))
+                {
+                    for (Path folder : stream)
+                    {
+                        if (Bukkit.getWorld(folder.getFileName().toString()) == null)
+                        {
+                            this.trash(folder).exceptionally(e ->
+                            {
+                                Bukkit.getLogger().warning("Failed to delete " + folder);
+                                e.printStackTrace();
+                                return null;
+                            });
+                        }
+                    }
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            Bukkit.getLogger().warning("Failed to sweep old minigame worlds");
+            e.printStackTrace();
+        }
+        this.startWorkers();
+    }
+
+    /**
+     * Moves the specified folder into the trash and schedules it to be deleted.
+     * If the folder cannot be moved it is deleted on the executor instead, so this never blocks the calling thread.
+     *
+     * @param folder The folder to delete
+     * @return A future for when the folder is no longer in its original place, completed exceptionally if it could not be removed
+     */
+    public CompletableFuture<Void> trash(Path folder)
+    {
+        try
+        {
+            this.moveToTrash(folder);
+            return CompletableFuture.completedFuture(null);
+        }
+        catch (IOException e)
+        {
+            // The trash is on another file system, so the folder has to be deleted in place
+            try
+            {
+                return CompletableFuture.runAsync(() ->
+                {
+                    try
+                    {
+                        deleteRecursive(folder);
+                    }
+                    catch (IOException e1)
+                    {
+                        e1.addSuppressed(e);
+                        throw new UncheckedIOException("Failed to delete " + folder, e1);
+                    }
+                }, this.executor);
+            }
+            catch (RejectedExecutionException e1)
+            {
+                // The folder is still there, so whatever owns its name must keep it until the next startup sweeps it
+                e1.addSuppressed(e);
+                return CompletableFuture.failedFuture(e1);
+            }
+        }
+    }
+
+    /**
+     * Moves the specified folder into the trash and schedules it to be deleted.
+     * If the folder cannot be moved it is deleted on the calling thread instead, so this must only be called from a background thread.
+     *
+     * @param folder The folder to delete
+     */
+    public void trashNow(Path folder)
+    {
+        try
+        {
+            this.moveToTrash(folder);
+        }
+        catch (IOException e)
+        {
+            delete(folder, e);
+        }
+    }
+
+    private void moveToTrash(Path folder) throws IOException
+    {
+        if (!Files.exists(folder))
+            return;
+
+        Files.createDirectories(this.trashFolder);
+        Path target = this.trashFolder.resolve(folder.getFileName() + "-" + System.currentTimeMillis() + "-" + this.trashCount.getAndIncrement());
+        Files.move(folder, target, StandardCopyOption.ATOMIC_MOVE);
+        this.jobs.offer(new Job(target));
+        this.startWorkers();
+    }
+
+    private static void delete(Path folder, IOException cause)
+    {
+        try
+        {
+            deleteRecursive(folder);
+        }
+        catch (IOException e)
+        {
+            e.addSuppressed(cause);
+            Bukkit.getLogger().warning("Failed to delete " + folder);
+            e.printStackTrace();
+        }
+    }
+
+    private void startWorkers()
+    {
+        while (!this.jobs.isEmpty())
+        {
+            int active = this.activeWorkers.get();
+            if (active >= this.parallelism)
+                return;
+            if (!this.activeWorkers.compareAndSet(active, active + 1))
+                continue;
+            if (!this.submit(this.jobs.poll()))
+                return;
+        }
+    }
+
+    private boolean submit(Job job)
+    {
+        if (job == null)
+        {
+            this.activeWorkers.decrementAndGet();
+            // A job may have been added after this worker found the queue empty
+            if (!this.jobs.isEmpty())
+                this.startWorkers();
+            return true;
+        }
+
+        try
+        {
+            this.executor.execute(() -> this.work(job));
+            return true;
+        }
+        catch (RejectedExecutionException e)
+        {
+            // The job is picked up again the next time a folder is trashed, or swept on the next startup
+            this.jobs.offer(job);
+            this.activeWorkers.decrementAndGet();
+            return false;
+        }
+    }
+
+    private void work(Job job)
+    {
+        try
+        {
+            if (!job.run(this.batchSize))
+            {
+                // Yield the thread between batches so deletion never crowds out other background work
+                this.jobs.offer(job);
+            }
+        }
+        catch (IOException e)
+        {
+            Bukkit.getLogger().warning("Failed to delete " + job.root);
+            e.printStackTrace();
+        }
+        this.submit(this.jobs.poll());
+    }
+
+    /**
+     * Deletes a folder and everything inside it on the calling thread.
+     *
+     * @param folder The folder to delete
+     * @throws IOException If any file could not be deleted
+     */
+    public static void deleteRecursive(Path folder) throws IOException
+    {
+        if (!Files.exists(folder))
+            return;
+        Files.walkFileTree(folder, new SimpleFileVisitor<>()
+        {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException
+            {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException
+            {
+                if (e != null)
+                    throw e;
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static class Job
+    {
+        private final Path root;
+        private final Deque<Path> folders;
+        private final Deque<Boolean> visited;
+
+        private Job(Path root)
+        {
+            this.root = root;
+            this.folders = new ArrayDeque<>();
+            this.visited = new ArrayDeque<>();
+            this.folders.push(root);
+            this.visited.push(false);
+        }
+
+        /**
+         * Deletes up to the specified number of files.
+         *
+         * @param batchSize The maximum number of files to delete
+         * @return Whether the whole folder has been deleted
+         */
+        private boolean run(int batchSize) throws IOException
+        {
+            int deleted = 0;
+            while (!this.folders.isEmpty())
+            {
+                if (deleted >= batchSize)
+                    return false;
+
+                Path folder = this.folders.pop();
+                if (this.visited.pop())
+                {
+                    Files.deleteIfExists(folder);
+                    deleted++;
+                    continue;
+                }
+                if (!Files.isDirectory(folder, LinkOption.NOFOLLOW_LINKS))
+                {
+                    Files.deleteIfExists(folder);
+                    deleted++;
+                    continue;
+                }
+
+                this.folders.push(folder);
+                this.visited.push(true);
+                List<Path> children = new ArrayList<>();
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder))
+                {
+                    for (Path path : stream)
+                    {
+                        if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS))
+                        {
+                            children.add(path);
+                            continue;
+                        }
+                        if (deleted >= batchSize)
+                        {
+                            // List this folder again in the next batch
+                            this.visited.pop();
+                            this.visited.push(false);
+                            return false;
+                        }
+                        Files.delete(path);
+                        deleted++;
+                    }
+                }
+                for (Path child : children)
+                {
+                    this.folders.push(child);
+                    this.visited.push(false);
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package io.github.ocelot.ludum.core.world;
+
+import io.github.ocelot.ludum.core.concurrent.ParallelTasks;
+import org.jetbrains.annotations.ApiStatus;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * <p>Extracts zipped world templates by inflating many entries at once.</p>
+ *
+ * @author Ocelot
+ */
+@ApiStatus.Internal
+public class ZipExtractor
+{
+    private final Executor executor;
+    private final int parallelism;
+    private final BufferPool buffers;
+
+    public ZipExtractor(Executor executor, int parallelism, BufferPool buffers)
+    {
+        this.executor = executor;
+        this.parallelism = Math.max(1, parallelism);
+        this.buffers = buffers;
+    }
+
+    /**
+     * Extracts all entries in the specified zip into a folder.
+     *
+     * @param name The name of the template being extracted
+     * @param zip  The zip file to read
+     * @param dst  The folder to extract into
+     * @return The statistics for the extraction
+     * @throws IOException If any error occurs reading the zip or writing files
+     */
+    public ExtractionStats extract(String name, Path zip, Path dst) throws IOException
+    {
+        long start = System.nanoTime();
+        LongAdder bytes = new LongAdder();
+        try (ZipFile file = new ZipFile(zip.toFile()))
+        {
+            List<ZipEntry> files = new ArrayList<>(file.size());
+            Enumeration<? extends ZipEntry> entries = file.entries();
+            while (entries.hasMoreElements())
+            {
+                ZipEntry entry = entries.nextElement();
+                Path path = resolveEntry(dst, entry.getName());
+                if (entry.isDirectory())
+                {
+                    Files.createDirectories(path);
+                }
+                else
+                {
+                    Files.createDirectories(path.getParent());
+                    files.add(entry);
+                }
+            }
+
+            // Start with the largest entries so one big region file does not finish last on its own
+            files.sort(Comparator.comparingLong(ZipEntry::getSize).reversed());
+            ParallelTasks.forEach(this.executor, this.parallelism, files, entry -> bytes.add(this.extractEntry(file, entry, resolveEntry(dst, entry.getName()))));
+            return new ExtractionStats(name, files.size(), bytes.sum(), System.nanoTime() - start);
+        }
+    }
+
+    private long extractEntry(ZipFile file, ZipEntry entry, Path target) throws IOException
+    {
+        ByteBuffer buffer = this.buffers.acquire();
+        long written = 0;
+        try (ReadableByteChannel in = Channels.newChannel(file.getInputStream(entry)); FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE))
+        {
+            while (in.read(buffer) != -1)
+            {
+                if (!buffer.hasRemaining())
+                    written += flush(buffer, out);
+            }
+            written += flush(buffer, out);
+        }
+        finally
+        {
+            this.buffers.release(buffer);
+        }
+        return written;
+    }
+
+    private static long flush(ByteBuffer buffer, FileChannel out) throws IOException
+    {
+        buffer.flip();
+        long written = 0;
+        while (buffer.hasRemaining())
+            written += out.write(buffer);
+        buffer.clear();
+        return written;
+    }
+
+    static Path resolveEntry(Path folder, String name) throws IOException
+    {
+        Path root = folder.normalize();
+        Path path = root.resolve(name).normalize();
+        if (!path.startsWith(root))
+            throw new IOException("Invalid template entry: " + name);
+        return path;
+    }
+}
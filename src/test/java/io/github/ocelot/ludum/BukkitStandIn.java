@@ -0,0 +1,99 @@
+package io.github.ocelot.ludum;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <p>A minimal stand-in for the parts of the Bukkit API the tested code touches, so tests and benchmarks run without a server.</p>
+ *
+ * @author Ocelot
+ */
+public final class BukkitStandIn
+{
+    private static final Logger LOGGER = Logger.getLogger("Ludum Stand-in");
+
+    private BukkitStandIn()
+    {
+    }
+
+    /**
+     * Installs a server that only provides a logger. Every other method returns <code>null</code> or zero.
+     */
+    public static synchronized void install()
+    {
+        if (Bukkit.getServer() != null)
+            return;
+
+        LOGGER.setLevel(Level.WARNING);
+        Bukkit.setServer((Server) Proxy.newProxyInstance(BukkitStandIn.class.getClassLoader(), new Class<?>[]{Server.class}, (proxy, method, args) ->
+        {
+            switch (method.getName())
+            {
+                case "getLogger":
+                    return LOGGER;
+                case "getName":
+                case "getVersion":
+                case "getBukkitVersion":
+                    return "stand-in";
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        }));
+    }
+
+    /**
+     * Creates a configuration section that returns the specified values and the default value it is asked for otherwise.
+     *
+     * @param values The values to return instead of the defaults
+     * @return A new configuration
+     */
+    public static ConfigurationSection config(Map<String, Object> values)
+    {
+        return (ConfigurationSection) Proxy.newProxyInstance(BukkitStandIn.class.getClassLoader(), new Class<?>[]{ConfigurationSection.class}, (proxy, method, args) ->
+        {
+            if (args != null && args.length == 2 && method.getName().startsWith("get"))
+                return values.getOrDefault((String) args[0], args[1]);
+            if (method.getName().equals("getStringList"))
+                return Collections.emptyList();
+            if (method.getName().equals("getConfigurationSection"))
+                return proxy;
+            return defaultValue(method.getReturnType());
+        });
+    }
+
+    /**
+     * Creates a configuration section that always returns the default value it is asked for.
+     *
+     * @return A new empty configuration
+     */
+    public static ConfigurationSection config()
+    {
+        return config(Collections.emptyMap());
+    }
+
+    /**
+     * @param type The return type of a stubbed method
+     * @return The value a stubbed method returns when it has nothing better to return
+     */
+    public static Object defaultValue(Class<?> type)
+    {
+        if (type == boolean.class)
+            return false;
+        if (type == int.class)
+            return 0;
+        if (type == long.class)
+            return 0L;
+        if (type == double.class)
+            return 0.0;
+        if (type == float.class)
+            return 0.0F;
+        return null;
+    }
+}
@@ -0,0 +1,164 @@
+package io.github.ocelot.ludum.core.tick;
+
+import io.github.ocelot.ludum.BukkitStandIn;
+import io.github.ocelot.ludum.api.CommandBuffer;
+import io.github.ocelot.ludum.api.Minigame;
+import io.github.ocelot.ludum.api.TickPriority;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Ocelot
+ */
+public class AsyncTickPhaseTest
+{
+    @Test
+    public void runningTaskIsNotTickedAgain() throws Exception
+    {
+        CountDownLatch release = new CountDownLatch(1);
+        CountingMinigame minigame = new CountingMinigame(release);
+        TickScheduler scheduler = new TickScheduler(BukkitStandIn.config());
+        TickScheduler.Entry entry = new TickScheduler.Entry("test", () -> {}, 1, TickPriority.NORMAL);
+        scheduler.setEntries(new TickScheduler.Entry[]{entry});
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            AsyncTickPhase phase = new AsyncTickPhase(executor, BukkitStandIn.config(Map.of("join-deadline-ms", 1.0)));
+            AsyncTickPhase.Task task = new AsyncTickPhase.Task("test", minigame, entry);
+            phase.setTasks(new AsyncTickPhase.Task[]{task});
+
+            // The first async tick misses the deadline and is still running for the next ticks
+            tick(phase, scheduler);
+            assertTrue(minigame.started.await(5, TimeUnit.SECONDS));
+            tick(phase, scheduler);
+            tick(phase, scheduler);
+            assertTrue(task.isRunning());
+            assertEquals(1, minigame.ticks.get());
+
+            // Anything submitted after the running tick only runs once it has finished
+            release.countDown();
+            executor.submit(() -> {}).get(5, TimeUnit.SECONDS);
+            tick(phase, scheduler);
+            executor.submit(() -> {}).get(5, TimeUnit.SECONDS);
+            assertEquals(2, minigame.ticks.get());
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void deferredEntryTicksAsyncOnce()
+    {
+        CountingMinigame minigame = new CountingMinigame(null);
+        AtomicInteger mainTicks = new AtomicInteger();
+        // No budget at all, so the entry is put off until it reaches the deferral limit
+        TickScheduler scheduler = new TickScheduler(BukkitStandIn.config(Map.of("budget-ms", 0.0, "max-deferred-ticks", 2)));
+        TickScheduler.Entry entry = new TickScheduler.Entry("test", mainTicks::incrementAndGet, 1, TickPriority.NORMAL);
+        scheduler.setEntries(new TickScheduler.Entry[]{entry});
+
+        AsyncTickPhase phase = new AsyncTickPhase(Runnable::run, BukkitStandIn.config());
+        phase.setTasks(new AsyncTickPhase.Task[]{new AsyncTickPhase.Task("test", minigame, entry)});
+
+        for (int i = 0; i < 3; i++)
+            tick(phase, scheduler);
+        assertEquals(1, mainTicks.get());
+        assertEquals(1, minigame.ticks.get());
+
+        tick(phase, scheduler);
+        assertEquals(2, minigame.ticks.get());
+    }
+
+    @Test
+    public void lateTaskDoesNotWakeMainThread() throws Exception
+    {
+        CountDownLatch release = new CountDownLatch(1);
+        CountingMinigame minigame = new CountingMinigame(release);
+        TickScheduler scheduler = new TickScheduler(BukkitStandIn.config());
+        TickScheduler.Entry entry = new TickScheduler.Entry("test", () -> {}, 1, TickPriority.NORMAL);
+        scheduler.setEntries(new TickScheduler.Entry[]{entry});
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        AtomicBoolean finished = new AtomicBoolean();
+        try
+        {
+            AsyncTickPhase phase = new AsyncTickPhase(command -> executor.execute(() ->
+            {
+                command.run();
+                finished.set(true);
+            }), BukkitStandIn.config(Map.of("join-deadline-ms", 1.0)));
+            phase.setTasks(new AsyncTickPhase.Task[]{new AsyncTickPhase.Task("test", minigame, entry)});
+
+            // The async tick misses the deadline and only finishes once the main thread has moved on
+            tick(phase, scheduler);
+            assertTrue(minigame.started.await(5, TimeUnit.SECONDS));
+            release.countDown();
+            // Spinning instead of blocking so nothing on this thread consumes a stray wake up
+            while (!finished.get())
+                Thread.onSpinWait();
+
+            long start = System.nanoTime();
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(25));
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void tick(AsyncTickPhase phase, TickScheduler scheduler)
+    {
+        phase.apply();
+        phase.begin(scheduler);
+        phase.join();
+        phase.apply();
+        scheduler.tick();
+    }
+
+    private static class CountingMinigame extends Minigame
+    {
+        private final CountDownLatch release;
+        private final CountDownLatch started;
+        private final AtomicInteger ticks;
+
+        private CountingMinigame(CountDownLatch release)
+        {
+            super("test");
+            this.release = release;
+            this.started = new CountDownLatch(1);
+            this.ticks = new AtomicInteger();
+        }
+
+        @Override
+        public void tickAsync(CommandBuffer commands)
+        {
+            this.ticks.incrementAndGet();
+            this.started.countDown();
+            if (this.release != null)
+            {
+                try
+                {
+                    this.release.await();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+}
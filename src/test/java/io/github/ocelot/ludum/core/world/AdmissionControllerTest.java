@@ -0,0 +1,116 @@
+package io.github.ocelot.ludum.core.world;
+
+import io.github.ocelot.ludum.BukkitStandIn;
+import io.github.ocelot.ludum.core.tick.TimerWheel;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Ocelot
+ */
+public class AdmissionControllerTest
+{
+    private static final Plugin PLUGIN = (Plugin) Proxy.newProxyInstance(AdmissionControllerTest.class.getClassLoader(), new Class<?>[]{Plugin.class}, (proxy, method, args) -> null);
+
+    @Test
+    public void arenaStaysTicketedAfterAdmission()
+    {
+        Set<Long> tickets = new HashSet<>();
+        World world = world(tickets);
+        long[] arena = ChunkTickets.around(0, 0, 2);
+        ChunkTickets.load(world, arena, PLUGIN);
+
+        AdmissionController admission = new AdmissionController(PLUGIN, Runnable::run, new TimerWheel(), BukkitStandIn.config());
+        Map<Player, Location> locations = new LinkedHashMap<>();
+        locations.put(player(world), new Location(world, 0, 64, 0));
+        locations.put(player(world), new Location(world, 0, 64, 0));
+        CompletableFuture<List<Player>> result = admission.admit(world, locations, player -> {}, () -> true);
+
+        assertTrue(result.isDone());
+        assertEquals(2, result.join().size());
+        for (long chunk : arena)
+            assertTrue(tickets.contains(chunk), "Arena chunk lost its ticket after admission");
+
+        ChunkTickets.release(world, arena, PLUGIN);
+        assertTrue(tickets.isEmpty());
+    }
+
+    @Test
+    public void overlappingBatchesKeepTickets()
+    {
+        Set<Long> tickets = new HashSet<>();
+        World world = world(tickets);
+        long[] first = ChunkTickets.around(0, 0, 1);
+        long[] second = ChunkTickets.around(1, 0, 1);
+        ChunkTickets.load(world, first, PLUGIN);
+        ChunkTickets.load(world, second, PLUGIN);
+
+        ChunkTickets.release(world, first, PLUGIN);
+        for (long chunk : second)
+            assertTrue(tickets.contains(chunk), "Chunk released while another batch still held it");
+        assertFalse(tickets.contains(ChunkTickets.pack(-1, 0)));
+
+        ChunkTickets.release(world, second, PLUGIN);
+        assertTrue(tickets.isEmpty());
+    }
+
+    private static World world(Set<Long> tickets)
+    {
+        UUID id = UUID.randomUUID();
+        return (World) Proxy.newProxyInstance(AdmissionControllerTest.class.getClassLoader(), new Class<?>[]{World.class}, (proxy, method, args) ->
+        {
+            switch (method.getName())
+            {
+                case "getUID":
+                    return id;
+                case "getName":
+                    return "test";
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "addPluginChunkTicket":
+                    return tickets.add(ChunkTickets.pack((int) args[0], (int) args[1]));
+                case "removePluginChunkTicket":
+                    return tickets.remove(ChunkTickets.pack((int) args[0], (int) args[1]));
+                case "getChunkAtAsync":
+                    return CompletableFuture.completedFuture(null);
+                default:
+                    return BukkitStandIn.defaultValue(method.getReturnType());
+            }
+        });
+    }
+
+    private static Player player(World world)
+    {
+        return (Player) Proxy.newProxyInstance(AdmissionControllerTest.class.getClassLoader(), new Class<?>[]{Player.class}, (proxy, method, args) ->
+        {
+            switch (method.getName())
+            {
+                case "isOnline":
+                    return true;
+                case "getWorld":
+                    return world;
+                case "getName":
+                    return "player";
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "teleportAsync":
+                    return CompletableFuture.completedFuture(true);
+                default:
+                    return BukkitStandIn.defaultValue(method.getReturnType());
+            }
+        });
+    }
+}